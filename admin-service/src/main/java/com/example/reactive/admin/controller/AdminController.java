@@ -6,6 +6,7 @@ import com.example.reactive.admin.model.AdminMetrics;
 import com.example.reactive.admin.model.PaymentResponse;
 import com.example.reactive.admin.model.PaymentStatus;
 import com.example.reactive.admin.service.AdminMetricsService;
+import com.example.reactive.sse.SseFanOut;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
@@ -32,6 +33,7 @@ import reactor.core.publisher.Mono;
 public class AdminController {
     private final AdminMetricsService metricsService;
     private final PaymentClient paymentClient;
+    private final SseFanOut sseFanOut;
 
     @PostMapping("/events")
     @Operation(summary = "Ingest admin event")
@@ -39,15 +41,21 @@ public class AdminController {
         return metricsService.ingest(event);
     }
 
+    @PostMapping("/events/batch")
+    @Operation(summary = "Ingest a batch of admin events")
+    public Mono<Void> ingestBatch(@RequestBody List<AdminEvent> events) {
+        return metricsService.ingestAll(events);
+    }
+
     @GetMapping(value = "/metrics/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
     @Operation(summary = "Stream admin metrics")
     public Flux<ServerSentEvent<AdminMetrics>> metricsStream() {
-        return Flux.interval(Duration.ofSeconds(1))
+        return sseFanOut.connect("admin-metrics", Flux.interval(Duration.ofSeconds(1))
                 .map(tick -> metricsService.snapshot())
                 .map(metrics -> ServerSentEvent.builder(metrics)
                         .event("METRICS")
                         .id(metrics.timestamp().toString())
-                        .build());
+                        .build()));
     }
 
     @GetMapping(value = "/transactions/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
@@ -72,7 +80,7 @@ public class AdminController {
                                 .id(event.timestamp().toString())
                                 .build()));
 
-        return initial.concatWith(updates);
+        return sseFanOut.connect("admin-transactions", initial.concatWith(updates));
     }
 
     @GetMapping("/transactions")
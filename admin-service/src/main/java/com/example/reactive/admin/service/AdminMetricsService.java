@@ -4,6 +4,7 @@ import com.example.reactive.admin.model.AdminEvent;
 import com.example.reactive.admin.model.AdminMetrics;
 import java.time.Instant;
 import java.util.Deque;
+import java.util.List;
 import java.util.concurrent.ConcurrentLinkedDeque;
 import java.util.concurrent.atomic.LongAdder;
 import lombok.extern.slf4j.Slf4j;
@@ -21,21 +22,13 @@ public class AdminMetricsService {
     private final Sinks.Many<AdminEvent> eventSink = Sinks.many().multicast().onBackpressureBuffer();
 
     public Mono<Void> ingest(AdminEvent event) {
+        return Mono.fromRunnable(() -> record(event));
+    }
+
+    public Mono<Void> ingestAll(List<AdminEvent> events) {
         return Mono.fromRunnable(() -> {
-            if (event == null) {
-                return;
-            }
-            log.info("Admin event ingested: type={}, orderId={}", event.type(), event.orderId());
-            if ("ORDER_CREATED".equalsIgnoreCase(event.type())) {
-                orderEvents.add(event.timestamp());
-            }
-            if ("PAYMENT_SUCCESS".equalsIgnoreCase(event.type())) {
-                paymentsSuccess.increment();
-            }
-            if ("PAYMENT_FAILED".equalsIgnoreCase(event.type())) {
-                paymentsFailed.increment();
-            }
-            eventSink.tryEmitNext(event);
+            events.forEach(this::record);
+            log.info("Admin event batch ingested: size={}", events.size());
         });
     }
 
@@ -52,6 +45,23 @@ public class AdminMetricsService {
         return new AdminMetrics(ordersPerMinute, success, failed, successRate, Instant.now());
     }
 
+    private synchronized void record(AdminEvent event) {
+        if (event == null) {
+            return;
+        }
+        log.info("Admin event ingested: type={}, orderId={}", event.type(), event.orderId());
+        if ("ORDER_CREATED".equalsIgnoreCase(event.type())) {
+            orderEvents.add(event.timestamp());
+        }
+        if ("PAYMENT_SUCCESS".equalsIgnoreCase(event.type())) {
+            paymentsSuccess.increment();
+        }
+        if ("PAYMENT_FAILED".equalsIgnoreCase(event.type())) {
+            paymentsFailed.increment();
+        }
+        eventSink.tryEmitNext(event);
+    }
+
     private long pruneAndCount(Deque<Instant> events) {
         Instant cutoff = Instant.now().minusSeconds(60);
         while (true) {
@@ -77,6 +77,27 @@ class AdminServiceIntegrationTest {
         assertThat(metrics.ordersPerMinute()).isGreaterThanOrEqualTo(1);
     }
 
+    @Test
+    void ingestBatchUpdatesMetricsSnapshot() {
+        AdminMetrics before = metricsService.snapshot();
+        List<AdminEvent> events = List.of(
+                new AdminEvent("PAYMENT_SUCCESS", UUID.randomUUID(), Instant.now()),
+                new AdminEvent("PAYMENT_SUCCESS", UUID.randomUUID(), Instant.now()),
+                new AdminEvent("PAYMENT_FAILED", UUID.randomUUID(), Instant.now())
+        );
+
+        webTestClient.post()
+                .uri("/api/admin/events/batch")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(events)
+                .exchange()
+                .expectStatus().isOk();
+
+        AdminMetrics metrics = metricsService.snapshot();
+        assertThat(metrics.paymentsSuccess()).isEqualTo(before.paymentsSuccess() + 2);
+        assertThat(metrics.paymentsFailed()).isEqualTo(before.paymentsFailed() + 1);
+    }
+
     @Test
     void transactionsListUsesPaymentClient() {
         PaymentResponse response = new PaymentResponse(
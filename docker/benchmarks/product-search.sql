@@ -0,0 +1,52 @@
+-- Сравнение поиска товаров по имени: LIKE '%...%' без индекса и с GIN-индексом pg_trgm.
+-- Запуск: docker compose exec -T postgres psql -U shop -d products < docker/benchmarks/product-search.sql
+-- Скрипт работает на отдельной таблице bench_products (1M строк) и удаляет ее в конце.
+
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+
+DROP TABLE IF EXISTS bench_products;
+CREATE TABLE bench_products (LIKE products INCLUDING DEFAULTS);
+
+INSERT INTO bench_products (id, name, description, category, price, currency, stock, image_url, updated_at)
+SELECT gen_random_uuid(),
+       (ARRAY['Aurora', 'Nimbus', 'Echo', 'Atlas', 'Orbit', 'Zephyr', 'Lumen', 'Vertex', 'Halo', 'Drift',
+              'Pulse', 'Summit'])[1 + g % 12]
+           || ' ' ||
+       (ARRAY['lamp', 'chair', 'speaker', 'backpack', 'desk', 'mug', 'headphones', 'shelf', 'sofa', 'clock'])
+           [1 + (g / 12) % 10]
+           || ' ' || md5(g::text)::varchar(6),
+       NULL,
+       (ARRAY['Lighting', 'Furniture', 'Audio', 'Accessories', 'Kitchen'])[1 + g % 5],
+       (g % 500) + 1,
+       'USD',
+       g % 100,
+       NULL,
+       now() - (g || ' seconds')::interval
+FROM generate_series(1, 1000000) AS g;
+ANALYZE bench_products;
+
+-- 1. Текущий путь: LIKE без индекса (последовательное сканирование).
+EXPLAIN (ANALYZE, BUFFERS)
+SELECT * FROM bench_products WHERE name LIKE '%Zephyr sofa%' ORDER BY updated_at DESC LIMIT 20;
+
+EXPLAIN (ANALYZE, BUFFERS)
+SELECT * FROM bench_products WHERE name LIKE '%a3f9%' ORDER BY updated_at DESC LIMIT 20;
+
+CREATE INDEX idx_bench_products_name_trgm ON bench_products USING gin (name gin_trgm_ops);
+ANALYZE bench_products;
+
+-- 2. Тот же LIKE с GIN-индексом pg_trgm.
+EXPLAIN (ANALYZE, BUFFERS)
+SELECT * FROM bench_products WHERE name LIKE '%Zephyr sofa%' ORDER BY updated_at DESC LIMIT 20;
+
+EXPLAIN (ANALYZE, BUFFERS)
+SELECT * FROM bench_products WHERE name LIKE '%a3f9%' ORDER BY updated_at DESC LIMIT 20;
+
+-- 3. Режим sort=RELEVANCE (как в ProductService.searchByRelevance).
+EXPLAIN (ANALYZE, BUFFERS)
+SELECT * FROM bench_products
+WHERE ('a3f9' <% name OR name ILIKE '%a3f9%')
+ORDER BY word_similarity('a3f9', name) DESC, updated_at DESC, id DESC
+LIMIT 20;
+
+DROP TABLE bench_products;
@@ -0,0 +1,38 @@
+package com.example.reactive.notification.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Component
+@ConfigurationProperties(prefix = "app.notifications")
+@Getter
+@Setter
+public class NotificationProperties {
+    private Backplane backplane = Backplane.REDIS;
+    private long lingerMs = 60_000L;
+    private Ingest ingest = new Ingest();
+    private Inbox inbox = new Inbox();
+
+    public enum Backplane {
+        LOCAL,
+        REDIS
+    }
+
+    @Getter
+    @Setter
+    public static class Ingest {
+        private int batchSize = 256;
+        private long maxDelayMs = 5;
+        private int maxBatchEvents = 10_000;
+    }
+
+    @Getter
+    @Setter
+    public static class Inbox {
+        private int capacity = 100;
+        private long ttlMs = 900_000L;
+        private long sweepIntervalMs = 60_000L;
+    }
+}
@@ -7,22 +7,32 @@ import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.springframework.web.server.ResponseStatusException;
 import org.springframework.web.server.ServerWebExchange;
 import reactor.core.publisher.Mono;
 
 @RestControllerAdvice
 @Order(-2)
 public class GlobalErrorHandler {
+    @ExceptionHandler(ResponseStatusException.class)
+    public Mono<ResponseEntity<ApiError>> handleStatus(ResponseStatusException ex, ServerWebExchange exchange) {
+        return buildError(HttpStatus.valueOf(ex.getStatusCode().value()), ex.getReason(), exchange);
+    }
+
     @ExceptionHandler(Throwable.class)
     public Mono<ResponseEntity<ApiError>> handleUnexpected(Throwable ex, ServerWebExchange exchange) {
+        return buildError(HttpStatus.INTERNAL_SERVER_ERROR, "Unexpected error", exchange);
+    }
+
+    private Mono<ResponseEntity<ApiError>> buildError(HttpStatus status, String message, ServerWebExchange exchange) {
         ApiError error = new ApiError(
                 Instant.now(),
-                HttpStatus.INTERNAL_SERVER_ERROR.value(),
-                HttpStatus.INTERNAL_SERVER_ERROR.getReasonPhrase(),
-                "Unexpected error",
+                status.value(),
+                status.getReasonPhrase(),
+                message,
                 exchange.getRequest().getPath().value(),
                 exchange.getRequest().getId()
         );
-        return Mono.just(ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(error));
+        return Mono.just(ResponseEntity.status(status).body(error));
     }
 }
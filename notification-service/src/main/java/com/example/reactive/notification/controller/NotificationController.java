@@ -3,7 +3,9 @@ package com.example.reactive.notification.controller;
 import com.example.reactive.notification.model.NotificationEvent;
 import com.example.reactive.notification.service.NotificationService;
 import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import java.util.List;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.MediaType;
 import org.springframework.http.codec.ServerSentEvent;
@@ -11,6 +13,7 @@ import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 import reactor.core.publisher.Flux;
@@ -21,6 +24,8 @@ import reactor.core.publisher.Mono;
 @Tag(name = "Notifications")
 @RequiredArgsConstructor
 public class NotificationController {
+    static final String LAST_EVENT_ID_HEADER = "Last-Event-ID";
+
     private final NotificationService notificationService;
 
     @PostMapping("/events")
@@ -29,9 +34,24 @@ public class NotificationController {
         return notificationService.publish(event);
     }
 
+    @PostMapping(value = "/events/batch", consumes = MediaType.APPLICATION_JSON_VALUE)
+    @Operation(summary = "Publish a batch of notification events")
+    public Mono<Void> publishBatch(@RequestBody List<NotificationEvent> events) {
+        return notificationService.publishAll(events);
+    }
+
+    @PostMapping(value = "/events/batch", consumes = MediaType.APPLICATION_NDJSON_VALUE)
+    @Operation(summary = "Publish a stream of newline-delimited notification events")
+    public Mono<Void> publishStream(@RequestBody Flux<NotificationEvent> events) {
+        return notificationService.publishAll(events);
+    }
+
     @GetMapping(value = "/stream/{userId}", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
     @Operation(summary = "Stream notifications for user")
-    public Flux<ServerSentEvent<NotificationEvent>> stream(@PathVariable String userId) {
-        return notificationService.stream(userId);
+    public Flux<ServerSentEvent<NotificationEvent>> stream(
+            @PathVariable String userId,
+            @Parameter(description = "Id of the last received event, replays newer retained events")
+            @RequestHeader(value = LAST_EVENT_ID_HEADER, required = false) String lastEventId) {
+        return notificationService.stream(userId, lastEventId);
     }
 }
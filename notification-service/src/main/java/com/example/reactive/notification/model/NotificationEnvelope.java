@@ -0,0 +1,10 @@
+package com.example.reactive.notification.model;
+
+import java.time.Instant;
+
+public record NotificationEnvelope(
+        long id,
+        NotificationEvent event,
+        Instant publishedAt
+) {
+}
@@ -0,0 +1,67 @@
+package com.example.reactive.notification.service;
+
+import com.example.reactive.notification.model.NotificationEnvelope;
+import com.example.reactive.notification.model.NotificationEvent;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.FluxSink;
+import reactor.core.publisher.Mono;
+
+@Component
+@ConditionalOnProperty(prefix = "app.notifications", name = "backplane", havingValue = "LOCAL")
+public class LocalNotificationBackplane implements NotificationBackplane {
+    private final Map<String, Set<FluxSink<NotificationEnvelope>>> listeners = new ConcurrentHashMap<>();
+    private final AtomicLong sequence = new AtomicLong(System.currentTimeMillis() * 1000);
+    private final NotificationInbox inbox;
+
+    public LocalNotificationBackplane(NotificationInbox inbox) {
+        this.inbox = inbox;
+    }
+
+    @Override
+    public Mono<Void> publish(String key, List<NotificationEvent> events) {
+        return Mono.fromRunnable(() -> {
+            synchronized (sequence) {
+                Instant now = Instant.now();
+                List<NotificationEnvelope> envelopes = events.stream()
+                        .map(event -> new NotificationEnvelope(sequence.incrementAndGet(), event, now))
+                        .toList();
+                envelopes.forEach(envelope -> inbox.append(key, envelope));
+                Set<FluxSink<NotificationEnvelope>> sinks = listeners.get(key);
+                if (sinks != null) {
+                    sinks.forEach(sink -> envelopes.forEach(sink::next));
+                }
+            }
+        });
+    }
+
+    @Override
+    public Flux<NotificationEnvelope> receive(String key, Runnable onSubscribed) {
+        return Flux.create(sink -> {
+            listeners.compute(key, (ignored, existing) -> {
+                Set<FluxSink<NotificationEnvelope>> current = existing == null
+                        ? ConcurrentHashMap.newKeySet()
+                        : existing;
+                current.add(sink);
+                return current;
+            });
+            sink.onDispose(() -> listeners.computeIfPresent(key, (ignored, current) -> {
+                current.remove(sink);
+                return current.isEmpty() ? null : current;
+            }));
+            onSubscribed.run();
+        });
+    }
+
+    @Override
+    public Mono<Replay> since(String key, long lastEventId) {
+        return Mono.fromCallable(() -> inbox.since(key, lastEventId));
+    }
+}
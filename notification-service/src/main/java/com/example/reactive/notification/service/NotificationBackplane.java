@@ -0,0 +1,18 @@
+package com.example.reactive.notification.service;
+
+import com.example.reactive.notification.model.NotificationEnvelope;
+import com.example.reactive.notification.model.NotificationEvent;
+import java.util.List;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+public interface NotificationBackplane {
+    Mono<Void> publish(String key, List<NotificationEvent> events);
+
+    Flux<NotificationEnvelope> receive(String key, Runnable onSubscribed);
+
+    Mono<Replay> since(String key, long lastEventId);
+
+    record Replay(List<NotificationEnvelope> events, boolean truncated) {
+    }
+}
@@ -0,0 +1,88 @@
+package com.example.reactive.notification.service;
+
+import com.example.reactive.notification.config.NotificationProperties;
+import com.example.reactive.notification.model.NotificationEnvelope;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+@Component
+@ConditionalOnProperty(prefix = "app.notifications", name = "backplane", havingValue = "LOCAL")
+public class NotificationInbox {
+    private final Map<String, UserInbox> inboxes = new ConcurrentHashMap<>();
+    private final int capacity;
+    private final Duration ttl;
+
+    public NotificationInbox(NotificationProperties properties) {
+        this.capacity = Math.max(1, properties.getInbox().getCapacity());
+        this.ttl = Duration.ofMillis(properties.getInbox().getTtlMs());
+    }
+
+    public void append(String key, NotificationEnvelope envelope) {
+        while (true) {
+            UserInbox inbox = inboxes.computeIfAbsent(key, ignored -> new UserInbox());
+            synchronized (inbox) {
+                if (inbox.removed) {
+                    continue;
+                }
+                inbox.entries.addLast(envelope);
+                if (inbox.entries.size() > capacity) {
+                    inbox.evictedThrough = Math.max(inbox.evictedThrough, inbox.entries.removeFirst().id());
+                }
+                return;
+            }
+        }
+    }
+
+    public NotificationBackplane.Replay since(String key, long lastEventId) {
+        UserInbox inbox = inboxes.get(key);
+        if (inbox == null) {
+            return new NotificationBackplane.Replay(List.of(), false);
+        }
+        Instant cutoff = Instant.now().minus(ttl);
+        synchronized (inbox) {
+            expire(inbox, cutoff);
+            List<NotificationEnvelope> missed = inbox.entries.stream()
+                    .filter(envelope -> envelope.id() > lastEventId)
+                    .toList();
+            return new NotificationBackplane.Replay(missed, lastEventId < inbox.evictedThrough);
+        }
+    }
+
+    public int size() {
+        return inboxes.size();
+    }
+
+    @Scheduled(fixedDelayString = "${app.notifications.inbox.sweep-interval-ms:60000}")
+    public void sweep() {
+        Instant cutoff = Instant.now().minus(ttl);
+        inboxes.forEach((key, inbox) -> {
+            synchronized (inbox) {
+                expire(inbox, cutoff);
+                if (inbox.entries.isEmpty()) {
+                    inbox.removed = true;
+                    inboxes.remove(key, inbox);
+                }
+            }
+        });
+    }
+
+    private void expire(UserInbox inbox, Instant cutoff) {
+        while (!inbox.entries.isEmpty() && inbox.entries.peekFirst().publishedAt().isBefore(cutoff)) {
+            inbox.evictedThrough = Math.max(inbox.evictedThrough, inbox.entries.removeFirst().id());
+        }
+    }
+
+    private static final class UserInbox {
+        private final Deque<NotificationEnvelope> entries = new ArrayDeque<>();
+        private long evictedThrough;
+        private boolean removed;
+    }
+}
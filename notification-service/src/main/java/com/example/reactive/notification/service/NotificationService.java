@@ -1,37 +1,315 @@
 package com.example.reactive.notification.service;
 
+import com.example.reactive.notification.config.NotificationProperties;
+import com.example.reactive.notification.model.NotificationEnvelope;
 import com.example.reactive.notification.model.NotificationEvent;
-import java.util.Objects;
+import com.example.reactive.sse.SseFanOut;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.codec.ServerSentEvent;
 import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.Disposable;
+import reactor.core.Disposables;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 import reactor.core.publisher.Sinks;
+import reactor.util.retry.Retry;
 
 @Service
 @Slf4j
 public class NotificationService {
-    private final Sinks.Many<NotificationEvent> sink = Sinks.many().replay().limit(1);
+    private static final String BROADCAST = "all";
+
+    private final NotificationBackplane backplane;
+    private final SseFanOut sseFanOut;
+    private final Duration linger;
+    private final Map<String, UserChannel> channels = new ConcurrentHashMap<>();
+    private final UserChannel broadcast = new UserChannel();
+    private final AtomicInteger connections = new AtomicInteger();
+    private final Timer deliveryLag;
+    private final DistributionSummary routedBatchSize;
+    private final Sinks.Many<Pending> ingest = Sinks.many().unicast().onBackpressureBuffer();
+    private final int batchSize;
+    private final int maxBatchEvents;
+    private final Duration maxDelay;
+
+    public NotificationService(NotificationBackplane backplane,
+                               SseFanOut sseFanOut,
+                               NotificationProperties properties,
+                               MeterRegistry meterRegistry) {
+        this.backplane = backplane;
+        this.sseFanOut = sseFanOut;
+        this.linger = Duration.ofMillis(properties.getLingerMs());
+        this.batchSize = Math.max(1, properties.getIngest().getBatchSize());
+        this.maxBatchEvents = Math.max(1, properties.getIngest().getMaxBatchEvents());
+        this.maxDelay = Duration.ofMillis(properties.getIngest().getMaxDelayMs());
+        Gauge.builder("notification.connections", connections, AtomicInteger::get)
+                .description("Open notification streams on this node")
+                .register(meterRegistry);
+        Gauge.builder("notification.channels", channels, Map::size)
+                .description("Users this node is subscribed to on the backplane")
+                .register(meterRegistry);
+        this.deliveryLag = Timer.builder("notification.delivery.lag")
+                .description("Time from publish on any node to delivery on this node")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        this.routedBatchSize = DistributionSummary.builder("notification.ingest.batch.size")
+                .description("Events handed to the backplane per chunk")
+                .register(meterRegistry);
+        broadcast.started.set(true);
+        start(BROADCAST, broadcast);
+        if (!maxDelay.isZero()) {
+            ingest.asFlux()
+                    .bufferTimeout(batchSize, maxDelay, true)
+                    .concatMap(this::route)
+                    .subscribe();
+        }
+    }
 
     public Mono<Void> publish(NotificationEvent event) {
-        return Mono.fromRunnable(() -> {
-            sink.tryEmitNext(event);
-            if (event != null) {
-                log.info("Notification published: type={}, userId={}", event.type(), event.userId());
-            }
-        });
+        return submit(List.of(event));
+    }
+
+    public Mono<Void> publishAll(List<NotificationEvent> events) {
+        if (events.size() > maxBatchEvents) {
+            return Mono.error(new ResponseStatusException(HttpStatus.PAYLOAD_TOO_LARGE,
+                    "Batch exceeds " + maxBatchEvents + " events"));
+        }
+        if (!valid(events)) {
+            return Mono.error(missingUserId());
+        }
+        return Flux.fromIterable(events)
+                .buffer(batchSize)
+                .concatMap(this::submit)
+                .then()
+                .doOnSuccess(ignored -> log.info("Notification batch published: size={}", events.size()));
     }
 
-    public Flux<ServerSentEvent<NotificationEvent>> stream(String userId) {
+    public Mono<Void> publishAll(Flux<NotificationEvent> events) {
+        return events.take(maxBatchEvents + 1L)
+                .collectList()
+                .flatMap(this::publishAll);
+    }
+
+    public Flux<ServerSentEvent<NotificationEvent>> stream(String userId, String lastEventId) {
         ServerSentEvent<NotificationEvent> connected = ServerSentEvent.<NotificationEvent>builder()
                 .comment("connected")
                 .build();
-        return Flux.concat(Mono.just(connected), sink.asFlux()
-                .filter(event -> Objects.equals(event.userId(), userId) || "all".equalsIgnoreCase(event.userId()))
-                .map(event -> ServerSentEvent.builder(event)
-                        .event(event.type())
-                        .id(event.timestamp().toString())
-                        .build()));
+        return Flux.defer(() -> {
+            UserChannel channel = channels.compute(userId, (key, existing) -> {
+                UserChannel current = existing == null ? new UserChannel() : existing;
+                current.subscribers.incrementAndGet();
+                return current;
+            });
+            connections.incrementAndGet();
+            if (channel.started.compareAndSet(false, true)) {
+                start(userId, channel);
+            }
+            Sinks.Many<NotificationEnvelope> pending = Sinks.many().unicast().onBackpressureBuffer();
+            Disposable live = Flux.merge(channel.sink.asFlux(), broadcast.sink.asFlux())
+                    .subscribe(pending::tryEmitNext);
+            Flux<ServerSentEvent<NotificationEvent>> events = Mono.when(channel.ready.asMono(), broadcast.ready.asMono())
+                    .thenMany(Flux.defer(() -> {
+                        if (lastEventId == null || lastEventId.isBlank()) {
+                            return pending.asFlux().map(this::toEvent);
+                        }
+                        long resumeFrom;
+                        try {
+                            resumeFrom = Long.parseLong(lastEventId.trim());
+                        } catch (NumberFormatException e) {
+                            log.info("Notification stream resumed from unknown event id: userId={}, lastEventId={}",
+                                    userId, lastEventId);
+                            return Flux.concat(Mono.just(resync(userId)), pending.asFlux().map(this::toEvent));
+                        }
+                        return resume(userId, resumeFrom, pending.asFlux());
+                    }));
+            return sseFanOut.connect("notifications", Flux.concat(Mono.just(connected), events))
+                    .doFinally(signal -> {
+                        live.dispose();
+                        release(userId, channel);
+                    });
+        });
+    }
+
+    private Flux<ServerSentEvent<NotificationEvent>> resume(String userId, long lastEventId,
+                                                            Flux<NotificationEnvelope> live) {
+        return Mono.zip(since(userId, lastEventId), since(BROADCAST, lastEventId))
+                .flatMapMany(replays -> {
+                    boolean truncated = replays.getT1().truncated() || replays.getT2().truncated();
+                    List<NotificationEnvelope> missed = new ArrayList<>(replays.getT1().events());
+                    missed.addAll(replays.getT2().events());
+                    missed.sort(Comparator.comparingLong(NotificationEnvelope::id));
+                    log.info("Notification stream resumed: userId={}, lastEventId={}, replayed={}, truncated={}",
+                            userId, lastEventId, missed.size(), truncated);
+                    Set<Long> replayed = missed.stream()
+                            .map(NotificationEnvelope::id)
+                            .collect(Collectors.toSet());
+                    Flux<ServerSentEvent<NotificationEvent>> replay = Flux.fromIterable(missed).map(this::toEvent);
+                    if (truncated) {
+                        replay = Flux.concat(Mono.just(resync(userId)), replay);
+                    }
+                    return replay.concatWith(live
+                            .filter(envelope -> !replayed.contains(envelope.id()))
+                            .map(this::toEvent));
+                });
+    }
+
+    private Mono<NotificationBackplane.Replay> since(String key, long lastEventId) {
+        return backplane.since(key, lastEventId)
+                .onErrorResume(error -> {
+                    log.warn("Failed to read retained notifications: key={}", key, error);
+                    return Mono.just(new NotificationBackplane.Replay(List.of(), true));
+                });
+    }
+
+    private ServerSentEvent<NotificationEvent> resync(String userId) {
+        NotificationEvent resync = new NotificationEvent(userId, "RESYNC",
+                "Missed notifications are no longer retained", Map.of(), Instant.now());
+        return ServerSentEvent.builder(resync)
+                .event(resync.type())
+                .build();
+    }
+
+    private Mono<Void> submit(List<NotificationEvent> events) {
+        if (!valid(events)) {
+            return Mono.error(missingUserId());
+        }
+        if (maxDelay.isZero()) {
+            return Mono.defer(() -> routeEvents(events));
+        }
+        return Mono.defer(() -> {
+            Ticket ticket = new Ticket(events.size());
+            synchronized (ingest) {
+                for (NotificationEvent event : events) {
+                    Sinks.EmitResult result = ingest.tryEmitNext(new Pending(event, ticket));
+                    if (result.isFailure()) {
+                        log.warn("Notification ingest rejected event: result={}", result);
+                        ticket.fail(new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE,
+                                "Notification ingest is not accepting events"));
+                        break;
+                    }
+                }
+            }
+            return ticket.done.asMono();
+        });
+    }
+
+    private boolean valid(List<NotificationEvent> events) {
+        return events.stream().noneMatch(event -> event == null || event.userId() == null);
+    }
+
+    private ResponseStatusException missingUserId() {
+        return new ResponseStatusException(HttpStatus.BAD_REQUEST, "userId is required");
+    }
+
+    private Mono<Void> route(List<Pending> chunk) {
+        return routeEvents(chunk.stream().map(Pending::event).toList())
+                .doOnSuccess(ignored -> chunk.forEach(pending -> pending.ticket().complete()))
+                .onErrorResume(error -> {
+                    log.warn("Failed to route notification chunk: size={}", chunk.size(), error);
+                    chunk.forEach(pending -> pending.ticket().fail(error));
+                    return Mono.empty();
+                });
+    }
+
+    private Mono<Void> routeEvents(List<NotificationEvent> events) {
+        Map<String, List<NotificationEvent>> byKey = new LinkedHashMap<>();
+        for (NotificationEvent event : events) {
+            String key = BROADCAST.equalsIgnoreCase(event.userId()) ? BROADCAST : event.userId();
+            byKey.computeIfAbsent(key, ignored -> new ArrayList<>()).add(event);
+        }
+        routedBatchSize.record(events.size());
+        return Flux.fromIterable(byKey.entrySet())
+                .flatMap(entry -> backplane.publish(entry.getKey(), entry.getValue()))
+                .then()
+                .doOnSuccess(ignored -> log.info("Notifications routed: events={}, channels={}",
+                        events.size(), byKey.size()));
+    }
+
+    private void start(String key, UserChannel channel) {
+        channel.resources.add(backplane
+                .receive(key, channel.ready::tryEmitEmpty)
+                .doOnError(error -> log.warn("Notification subscription failed, resubscribing: key={}", key, error))
+                .retryWhen(Retry.backoff(Long.MAX_VALUE, Duration.ofSeconds(1)).maxBackoff(Duration.ofSeconds(30)))
+                .subscribe(envelope -> deliver(channel, envelope)));
+    }
+
+    private void deliver(UserChannel channel, NotificationEnvelope envelope) {
+        deliveryLag.record(Duration.between(envelope.publishedAt(), Instant.now()));
+        channel.sink.tryEmitNext(envelope);
+    }
+
+    private ServerSentEvent<NotificationEvent> toEvent(NotificationEnvelope envelope) {
+        return ServerSentEvent.builder(envelope.event())
+                .event(envelope.event().type())
+                .id(Long.toString(envelope.id()))
+                .build();
+    }
+
+    private void release(String userId, UserChannel channel) {
+        connections.decrementAndGet();
+        if (channel.subscribers.decrementAndGet() > 0) {
+            return;
+        }
+        Mono.delay(linger).subscribe(ignored -> {
+            AtomicBoolean removed = new AtomicBoolean();
+            channels.computeIfPresent(userId, (key, current) -> {
+                if (current != channel || current.subscribers.get() > 0) {
+                    return current;
+                }
+                removed.set(true);
+                return null;
+            });
+            if (removed.get()) {
+                channel.resources.dispose();
+            }
+        });
+    }
+
+    private record Pending(NotificationEvent event, Ticket ticket) {
+    }
+
+    private static final class Ticket {
+        private final Sinks.Empty<Void> done = Sinks.empty();
+        private final AtomicInteger remaining;
+
+        private Ticket(int events) {
+            this.remaining = new AtomicInteger(events);
+        }
+
+        private void complete() {
+            if (remaining.decrementAndGet() == 0) {
+                done.tryEmitEmpty();
+            }
+        }
+
+        private void fail(Throwable error) {
+            done.tryEmitError(error);
+        }
+    }
+
+    private static final class UserChannel {
+        private final Sinks.Many<NotificationEnvelope> sink = Sinks.many().multicast().directBestEffort();
+        private final Sinks.Empty<Void> ready = Sinks.empty();
+        private final Disposable.Composite resources = Disposables.composite();
+        private final AtomicInteger subscribers = new AtomicInteger();
+        private final AtomicBoolean started = new AtomicBoolean();
     }
 }
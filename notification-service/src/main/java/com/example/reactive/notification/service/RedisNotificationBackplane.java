@@ -0,0 +1,158 @@
+package com.example.reactive.notification.service;
+
+import com.example.reactive.notification.config.NotificationProperties;
+import com.example.reactive.notification.model.NotificationEnvelope;
+import com.example.reactive.notification.model.NotificationEvent;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.redis.connection.SubscriptionListener;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.data.redis.listener.ReactiveRedisMessageListenerContainer;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+@Component
+@ConditionalOnProperty(prefix = "app.notifications", name = "backplane", havingValue = "REDIS", matchIfMissing = true)
+@Slf4j
+public class RedisNotificationBackplane implements NotificationBackplane {
+    private static final String CHANNEL_PREFIX = "notifications:";
+    private static final String SEQUENCE_KEY = "notifications:sequence";
+    private static final String INBOX_PREFIX = "notifications:inbox:";
+    private static final String EVICTED_PREFIX = "notifications:evicted:";
+    private static final RedisScript<Long> PUBLISH_SCRIPT = RedisScript.of("""
+            local count = tonumber(ARGV[2])
+            local capacity = tonumber(ARGV[5])
+            if redis.call('EXISTS', KEYS[1]) == 0 then
+                redis.call('SET', KEYS[1], ARGV[4])
+            end
+            local first = redis.call('INCRBY', KEYS[1], count) - count + 1
+            local events = {}
+            for i = 1, count do
+                local event = ARGV[6 + i]
+                events[i] = event
+                redis.call('LPUSH', KEYS[2], '{"id":' .. string.format('%d', first + i - 1)
+                        .. ',"event":' .. event .. ',"publishedAt":' .. ARGV[3] .. '}')
+            end
+            local evicted = redis.call('LINDEX', KEYS[2], capacity)
+            if evicted then
+                redis.call('LTRIM', KEYS[2], 0, capacity - 1)
+                local id = tonumber(string.match(evicted, '^{"id":(%d+)'))
+                if id > tonumber(redis.call('GET', KEYS[3]) or '0') then
+                    redis.call('SET', KEYS[3], string.format('%d', id))
+                end
+            end
+            redis.call('PEXPIRE', KEYS[2], ARGV[6])
+            redis.call('PEXPIRE', KEYS[3], ARGV[6])
+            redis.call('PUBLISH', ARGV[1], string.format('%d', first) .. ':{"publishedAt":' .. ARGV[3]
+                    .. ',"events":[' .. table.concat(events, ',') .. ']}')
+            return first
+            """, Long.class);
+
+    private final ReactiveStringRedisTemplate redisTemplate;
+    private final ReactiveRedisMessageListenerContainer listenerContainer;
+    private final ObjectMapper objectMapper;
+    private final int capacity;
+    private final Duration ttl;
+
+    public RedisNotificationBackplane(ReactiveStringRedisTemplate redisTemplate,
+                                      ReactiveRedisMessageListenerContainer listenerContainer,
+                                      ObjectMapper objectMapper,
+                                      NotificationProperties properties) {
+        this.redisTemplate = redisTemplate;
+        this.listenerContainer = listenerContainer;
+        this.objectMapper = objectMapper;
+        this.capacity = Math.max(1, properties.getInbox().getCapacity());
+        this.ttl = Duration.ofMillis(properties.getInbox().getTtlMs());
+    }
+
+    @Override
+    public Mono<Void> publish(String key, List<NotificationEvent> events) {
+        return Mono.fromCallable(() -> {
+                    List<String> args = new ArrayList<>(events.size() + 6);
+                    args.add(CHANNEL_PREFIX + key);
+                    args.add(Integer.toString(events.size()));
+                    args.add(objectMapper.writeValueAsString(Instant.now()));
+                    args.add(Long.toString(System.currentTimeMillis() * 1000));
+                    args.add(Integer.toString(capacity));
+                    args.add(Long.toString(ttl.toMillis()));
+                    for (NotificationEvent event : events) {
+                        args.add(objectMapper.writeValueAsString(event));
+                    }
+                    return args;
+                })
+                .flatMapMany(args -> redisTemplate.execute(PUBLISH_SCRIPT,
+                        List.of(SEQUENCE_KEY, INBOX_PREFIX + key, EVICTED_PREFIX + key), args))
+                .then();
+    }
+
+    @Override
+    public Flux<NotificationEnvelope> receive(String key, Runnable onSubscribed) {
+        SubscriptionListener listener = new SubscriptionListener() {
+            @Override
+            public void onChannelSubscribed(byte[] channel, long count) {
+                onSubscribed.run();
+            }
+        };
+        return listenerContainer.receive(List.of(ChannelTopic.of(CHANNEL_PREFIX + key)), listener)
+                .concatMap(message -> Mono.fromCallable(() -> read(message.getMessage()))
+                        .onErrorResume(error -> {
+                            log.warn("Dropping malformed notification: channel={}", message.getChannel(), error);
+                            return Mono.empty();
+                        }))
+                .flatMapIterable(envelopes -> envelopes);
+    }
+
+    @Override
+    public Mono<Replay> since(String key, long lastEventId) {
+        Instant cutoff = Instant.now().minus(ttl);
+        return Mono.zip(
+                        redisTemplate.opsForList().range(INBOX_PREFIX + key, 0, -1).collectList(),
+                        redisTemplate.opsForValue().get(EVICTED_PREFIX + key).map(Long::parseLong).defaultIfEmpty(0L))
+                .map(stored -> {
+                    long evictedThrough = stored.getT2();
+                    List<NotificationEnvelope> missed = new ArrayList<>();
+                    for (String entry : stored.getT1()) {
+                        NotificationEnvelope envelope = readEnvelope(entry);
+                        if (envelope.publishedAt().isBefore(cutoff)) {
+                            evictedThrough = Math.max(evictedThrough, envelope.id());
+                        } else if (envelope.id() > lastEventId) {
+                            missed.add(envelope);
+                        }
+                    }
+                    missed.sort(Comparator.comparingLong(NotificationEnvelope::id));
+                    return new Replay(missed, lastEventId < evictedThrough);
+                });
+    }
+
+    private List<NotificationEnvelope> read(String message) throws IOException {
+        int separator = message.indexOf(':');
+        long firstId = Long.parseLong(message.substring(0, separator));
+        Batch batch = objectMapper.readValue(message.substring(separator + 1), Batch.class);
+        List<NotificationEnvelope> envelopes = new ArrayList<>(batch.events().size());
+        for (int i = 0; i < batch.events().size(); i++) {
+            envelopes.add(new NotificationEnvelope(firstId + i, batch.events().get(i), batch.publishedAt()));
+        }
+        return envelopes;
+    }
+
+    private NotificationEnvelope readEnvelope(String entry) {
+        try {
+            return objectMapper.readValue(entry, NotificationEnvelope.class);
+        } catch (IOException e) {
+            throw new IllegalStateException("Malformed inbox entry", e);
+        }
+    }
+
+    record Batch(Instant publishedAt, List<NotificationEvent> events) {
+    }
+}
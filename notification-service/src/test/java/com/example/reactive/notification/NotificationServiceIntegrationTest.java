@@ -3,20 +3,30 @@ package com.example.reactive.notification;
 import static org.assertj.core.api.Assertions.assertThat;
 
 import com.example.reactive.notification.model.NotificationEvent;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.reactive.AutoConfigureWebTestClient;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.core.io.buffer.DataBuffer;
 import org.springframework.http.MediaType;
 import org.springframework.http.codec.ServerSentEvent;
 import org.springframework.test.web.reactive.server.WebTestClient;
 import reactor.core.publisher.Flux;
 import reactor.test.StepVerifier;
 
-@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = {
+                "app.notifications.backplane=LOCAL",
+                "app.notifications.inbox.capacity=3",
+                "app.notifications.ingest.max-batch-events=500"
+        })
 @AutoConfigureWebTestClient
 class NotificationServiceIntegrationTest {
     @Autowired
@@ -85,4 +95,300 @@ class NotificationServiceIntegrationTest {
                 })
                 .verifyComplete();
     }
+
+    @Test
+    void streamReceivesBatchedEvents() {
+        Flux<ServerSentEvent<NotificationEvent>> stream = webTestClient.get()
+                .uri("/api/notifications/stream/{userId}", "user-3")
+                .accept(MediaType.TEXT_EVENT_STREAM)
+                .exchange()
+                .returnResult(new ParameterizedTypeReference<ServerSentEvent<NotificationEvent>>() {})
+                .getResponseBody();
+
+        List<NotificationEvent> events = List.of(
+                new NotificationEvent("user-3", "PAYMENT_PAID", "Payment successful", Map.of("orderId", "order-3"),
+                        Instant.now()),
+                new NotificationEvent("user-4", "PAYMENT_PAID", "Payment successful", Map.of("orderId", "order-4"),
+                        Instant.now()),
+                new NotificationEvent("user-3", "ORDER_STATUS", "Order paid", Map.of("orderId", "order-3"),
+                        Instant.now())
+        );
+
+        StepVerifier.create(stream.filter(sse -> sse.data() != null && "user-3".equals(sse.data().userId())).take(2))
+                .then(() -> webTestClient.post()
+                        .uri("/api/notifications/events/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .bodyValue(events)
+                        .exchange()
+                        .expectStatus().isOk())
+                .assertNext(sse -> assertThat(sse.event()).isEqualTo("PAYMENT_PAID"))
+                .assertNext(sse -> assertThat(sse.event()).isEqualTo("ORDER_STATUS"))
+                .verifyComplete();
+    }
+
+    @Test
+    void streamReceivesOnlyItsOwnUserEvents() {
+        Flux<ServerSentEvent<NotificationEvent>> stream = webTestClient.get()
+                .uri("/api/notifications/stream/{userId}", "user-5")
+                .accept(MediaType.TEXT_EVENT_STREAM)
+                .exchange()
+                .returnResult(new ParameterizedTypeReference<ServerSentEvent<NotificationEvent>>() {})
+                .getResponseBody();
+
+        List<NotificationEvent> events = List.of(
+                new NotificationEvent("user-6", "ORDER_CREATED", "Order created", Map.of("orderId", "order-6"),
+                        Instant.now()),
+                new NotificationEvent("user-5", "ORDER_CREATED", "Order created", Map.of("orderId", "order-5"),
+                        Instant.now())
+        );
+
+        StepVerifier.create(stream.filter(sse -> sse.data() != null).take(1))
+                .then(() -> webTestClient.post()
+                        .uri("/api/notifications/events/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .bodyValue(events)
+                        .exchange()
+                        .expectStatus().isOk())
+                .assertNext(sse -> {
+                    assertThat(sse.data()).isNotNull();
+                    assertThat(sse.data().userId()).isEqualTo("user-5");
+                    assertThat(sse.data().payload()).containsEntry("orderId", "order-5");
+                })
+                .verifyComplete();
+    }
+
+    @Test
+    void streamReceivesNdjsonBatch() {
+        Flux<ServerSentEvent<NotificationEvent>> stream = stream("user-11", null);
+        String body = Flux.range(1, 3)
+                .map(i -> "{\"userId\":\"user-11\",\"type\":\"ORDER_STATUS\",\"message\":\"Order updated\","
+                        + "\"payload\":{\"orderId\":\"order-11-" + i + "\"}}\n")
+                .reduce(String::concat)
+                .block();
+
+        StepVerifier.create(stream.filter(sse -> sse.data() != null).take(3))
+                .then(() -> webTestClient.post()
+                        .uri("/api/notifications/events/batch")
+                        .contentType(MediaType.APPLICATION_NDJSON)
+                        .bodyValue(body)
+                        .exchange()
+                        .expectStatus().isOk())
+                .assertNext(sse -> assertThat(sse.data().payload()).containsEntry("orderId", "order-11-1"))
+                .assertNext(sse -> assertThat(sse.data().payload()).containsEntry("orderId", "order-11-2"))
+                .assertNext(sse -> assertThat(sse.data().payload()).containsEntry("orderId", "order-11-3"))
+                .verifyComplete();
+    }
+
+    @Test
+    void eventWithoutUserIsRejected() {
+        webTestClient.post()
+                .uri("/api/notifications/events")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(new NotificationEvent(null, "ORDER_STATUS", "Order updated", Map.of(), Instant.now()))
+                .exchange()
+                .expectStatus().isBadRequest();
+    }
+
+    @Test
+    void batchWithInvalidEventIsRejectedAsAWhole() {
+        List<NotificationEvent> events = new ArrayList<>();
+        for (int i = 0; i < 300; i++) {
+            events.add(event("user-13", "order-13-" + i));
+        }
+        events.add(new NotificationEvent(null, "ORDER_STATUS", "Order updated", Map.of(), Instant.now()));
+
+        StepVerifier.create(stream("user-13", null)
+                        .filter(sse -> sse.data() != null && "user-13".equals(sse.data().userId()))
+                        .take(1))
+                .then(() -> webTestClient.post()
+                        .uri("/api/notifications/events/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .bodyValue(events)
+                        .exchange()
+                        .expectStatus().isBadRequest())
+                .then(() -> publish(List.of(event("user-13", "order-13-valid"))))
+                .assertNext(sse -> assertThat(sse.data().payload()).containsEntry("orderId", "order-13-valid"))
+                .verifyComplete();
+    }
+
+    @Test
+    void ndjsonBatchWithInvalidLineIsRejectedAsAWhole() {
+        StringBuilder body = new StringBuilder();
+        for (int i = 0; i < 300; i++) {
+            body.append("{\"userId\":\"user-16\",\"type\":\"ORDER_STATUS\",\"message\":\"Order updated\",")
+                    .append("\"payload\":{\"orderId\":\"order-16-").append(i).append("\"}}\n");
+        }
+        body.append("{\"type\":\"ORDER_STATUS\",\"message\":\"Order updated\"}\n");
+
+        StepVerifier.create(stream("user-16", null)
+                        .filter(sse -> sse.data() != null && "user-16".equals(sse.data().userId()))
+                        .take(1))
+                .then(() -> webTestClient.post()
+                        .uri("/api/notifications/events/batch")
+                        .contentType(MediaType.APPLICATION_NDJSON)
+                        .bodyValue(body.toString())
+                        .exchange()
+                        .expectStatus().isBadRequest())
+                .then(() -> publish(List.of(event("user-16", "order-16-valid"))))
+                .assertNext(sse -> assertThat(sse.data().payload()).containsEntry("orderId", "order-16-valid"))
+                .verifyComplete();
+    }
+
+    @Test
+    void ndjsonBatchOverLimitIsRejected() {
+        String body = Flux.range(0, 501)
+                .map(i -> "{\"userId\":\"user-17\",\"type\":\"ORDER_STATUS\",\"message\":\"Order updated\"}\n")
+                .reduce(String::concat)
+                .block();
+
+        webTestClient.post()
+                .uri("/api/notifications/events/batch")
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .bodyValue(body)
+                .exchange()
+                .expectStatus().isEqualTo(413);
+    }
+
+    @Test
+    void reconnectWithLastEventIdReplaysMissedEvents() {
+        Flux<ServerSentEvent<NotificationEvent>> first = stream("user-7", null);
+
+        ServerSentEvent<NotificationEvent> received = first.filter(sse -> sse.data() != null)
+                .take(1)
+                .doOnSubscribe(ignored -> publish(List.of(event("user-7", "order-7a"))))
+                .blockFirst(Duration.ofSeconds(5));
+        assertThat(received).isNotNull();
+        assertThat(received.id()).matches("\\d+");
+
+        publish(List.of(event("user-7", "order-7b"), event("user-8", "order-8"), event("user-7", "order-7c")));
+
+        StepVerifier.create(stream("user-7", received.id())
+                        .filter(sse -> sse.data() != null && "user-7".equals(sse.data().userId()))
+                        .take(2))
+                .assertNext(sse -> assertThat(sse.data().payload()).containsEntry("orderId", "order-7b"))
+                .assertNext(sse -> {
+                    assertThat(sse.data().payload()).containsEntry("orderId", "order-7c");
+                    assertThat(Long.parseLong(sse.id())).isGreaterThan(Long.parseLong(received.id()));
+                })
+                .verifyComplete();
+    }
+
+    @Test
+    void reconnectPastRetainedEventsRequestsResync() {
+        String lastEventId = receiveThenOverflowInbox("user-9");
+
+        StepVerifier.create(stream("user-9", lastEventId)
+                        .filter(sse -> sse.data() != null && "user-9".equals(sse.data().userId()))
+                        .take(4))
+                .assertNext(sse -> {
+                    assertThat(sse.event()).isEqualTo("RESYNC");
+                    assertThat(sse.data().type()).isEqualTo("RESYNC");
+                })
+                .assertNext(sse -> assertThat(sse.data().payload()).containsEntry("orderId", "user-9-d"))
+                .assertNext(sse -> assertThat(sse.data().payload()).containsEntry("orderId", "user-9-e"))
+                .assertNext(sse -> assertThat(sse.data().payload()).containsEntry("orderId", "user-9-f"))
+                .verifyComplete();
+    }
+
+    @Test
+    void resyncFrameCarriesDataLine() {
+        String lastEventId = receiveThenOverflowInbox("user-12");
+
+        String raw = webTestClient.get()
+                .uri("/api/notifications/stream/{userId}", "user-12")
+                .accept(MediaType.TEXT_EVENT_STREAM)
+                .header("Last-Event-ID", lastEventId)
+                .exchange()
+                .returnResult(DataBuffer.class)
+                .getResponseBody()
+                .map(buffer -> buffer.toString(StandardCharsets.UTF_8))
+                .scan("", String::concat)
+                .filter(text -> text.contains("event:RESYNC\ndata:{\"userId\":\"user-12\",\"type\":\"RESYNC\""))
+                .blockFirst(Duration.ofSeconds(5));
+
+        assertThat(raw).isNotNull();
+    }
+
+    @Test
+    void legacyLastEventIdRequestsResyncWithoutReplay() {
+        publish(List.of(event("user-15", "order-15a")));
+
+        StepVerifier.create(stream("user-15", Instant.now().toString())
+                        .filter(sse -> sse.data() != null && "user-15".equals(sse.data().userId()))
+                        .take(2)
+                        .doOnNext(sse -> {
+                            if ("RESYNC".equals(sse.event())) {
+                                publish(List.of(event("user-15", "order-15b")));
+                            }
+                        }))
+                .assertNext(sse -> assertThat(sse.event()).isEqualTo("RESYNC"))
+                .assertNext(sse -> assertThat(sse.data().payload()).containsEntry("orderId", "order-15b"))
+                .verifyComplete();
+    }
+
+    @Test
+    void eventsPublishedWhileNoStreamWasOpenAreReplayed() {
+        publish(List.of(event("user-14", "order-14a"), event("user-14", "order-14b")));
+
+        StepVerifier.create(stream("user-14", "1")
+                        .filter(sse -> sse.data() != null && "user-14".equals(sse.data().userId()))
+                        .take(2))
+                .assertNext(sse -> assertThat(sse.data().payload()).containsEntry("orderId", "order-14a"))
+                .assertNext(sse -> assertThat(sse.data().payload()).containsEntry("orderId", "order-14b"))
+                .verifyComplete();
+    }
+
+    @Test
+    void resumeWithoutRetainedEventsDoesNotResync() {
+        StepVerifier.create(stream("user-10", "1")
+                        .filter(sse -> sse.data() != null && "user-10".equals(sse.data().userId()))
+                        .take(1)
+                        .doOnSubscribe(ignored -> publish(List.of(event("user-10", "order-10")))))
+                .assertNext(sse -> {
+                    assertThat(sse.event()).isEqualTo("ORDER_STATUS");
+                    assertThat(sse.data().payload()).containsEntry("orderId", "order-10");
+                })
+                .verifyComplete();
+    }
+
+    private String receiveThenOverflowInbox(String userId) {
+        ServerSentEvent<NotificationEvent> received = stream(userId, null)
+                .filter(sse -> sse.data() != null)
+                .take(1)
+                .doOnSubscribe(ignored -> publish(List.of(event(userId, userId + "-a"))))
+                .blockFirst(Duration.ofSeconds(5));
+        assertThat(received).isNotNull();
+
+        publish(List.of(event(userId, userId + "-b"), event(userId, userId + "-c"), event(userId, userId + "-d"),
+                event(userId, userId + "-e"), event(userId, userId + "-f")));
+        return received.id();
+    }
+
+    private Flux<ServerSentEvent<NotificationEvent>> stream(String userId, String lastEventId) {
+        return webTestClient.get()
+                .uri("/api/notifications/stream/{userId}", userId)
+                .accept(MediaType.TEXT_EVENT_STREAM)
+                .headers(headers -> {
+                    if (lastEventId != null) {
+                        headers.set("Last-Event-ID", lastEventId);
+                    }
+                })
+                .exchange()
+                .returnResult(new ParameterizedTypeReference<ServerSentEvent<NotificationEvent>>() {})
+                .getResponseBody();
+    }
+
+    private void publish(List<NotificationEvent> events) {
+        webTestClient.post()
+                .uri("/api/notifications/events/batch")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(events)
+                .exchange()
+                .expectStatus().isOk();
+    }
+
+    private static NotificationEvent event(String userId, String orderId) {
+        return new NotificationEvent(userId, "ORDER_STATUS", "Order updated", Map.of("orderId", orderId),
+                Instant.now());
+    }
 }
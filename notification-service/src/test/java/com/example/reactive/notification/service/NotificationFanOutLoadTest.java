@@ -0,0 +1,157 @@
+package com.example.reactive.notification.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.example.reactive.notification.config.NotificationProperties;
+import com.example.reactive.notification.model.NotificationEvent;
+import com.example.reactive.sse.SseFanOut;
+import com.example.reactive.sse.SseProperties;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import reactor.core.Disposable;
+import reactor.core.publisher.Sinks;
+
+@Slf4j
+class NotificationFanOutLoadTest {
+    private static final int EVENTS = 20_000;
+
+    @Test
+    void deliversOnlyToTargetedSubscribers() {
+        NotificationService service = node(backplane(), new SimpleMeterRegistry());
+        LongAdder delivered = new LongAdder();
+        List<Disposable> subscriptions = subscribe(service, 1_000, delivered);
+
+        service.publish(event("user-7")).block();
+        service.publish(event("user-unknown")).block();
+        service.publish(event("all")).block();
+
+        assertThat(delivered.sum()).isEqualTo(1 + 1_000);
+        subscriptions.forEach(Disposable::dispose);
+    }
+
+    @Test
+    void deliversAcrossNodesSharingABackplane() {
+        LocalNotificationBackplane backplane = backplane();
+        MeterRegistry registryA = new SimpleMeterRegistry();
+        MeterRegistry registryB = new SimpleMeterRegistry();
+        NotificationService nodeA = node(backplane, registryA);
+        NotificationService nodeB = node(backplane, registryB);
+        LongAdder delivered = new LongAdder();
+        Disposable subscription = nodeB.stream("user-1", null)
+                .filter(sse -> sse.data() != null)
+                .subscribe(sse -> delivered.increment());
+
+        nodeA.publish(event("user-1")).block();
+        nodeA.publish(event("all")).block();
+
+        assertThat(delivered.sum()).isEqualTo(2);
+        assertThat(registryA.get("notification.channels").gauge().value()).isZero();
+        assertThat(registryB.get("notification.channels").gauge().value()).isEqualTo(1);
+        assertThat(registryB.get("notification.connections").gauge().value()).isEqualTo(1);
+        assertThat(registryA.get("notification.delivery.lag").timer().count()).isEqualTo(1);
+        assertThat(registryB.get("notification.delivery.lag").timer().count()).isEqualTo(2);
+        subscription.dispose();
+    }
+
+    @Test
+    void assignsIncreasingIdsAcrossNodes() {
+        LocalNotificationBackplane backplane = backplane();
+        NotificationService nodeA = node(backplane, new SimpleMeterRegistry());
+        NotificationService nodeB = node(backplane, new SimpleMeterRegistry());
+        List<Long> ids = new ArrayList<>();
+        Disposable subscription = nodeB.stream("user-1", null)
+                .filter(sse -> sse.data() != null)
+                .subscribe(sse -> ids.add(Long.parseLong(sse.id())));
+
+        for (int i = 0; i < 10; i++) {
+            (i % 2 == 0 ? nodeA : nodeB).publish(event(i % 3 == 0 ? "all" : "user-1")).block();
+        }
+
+        assertThat(ids).hasSize(10).isSorted().doesNotHaveDuplicates();
+        subscription.dispose();
+    }
+
+    @Test
+    @EnabledIfEnvironmentVariable(named = "NOTIFICATION_FANOUT_BENCHMARK", matches = "true")
+    void benchmark() {
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        for (int subscribers : new int[] {1_000, 10_000, 50_000}) {
+            NotificationService service = node(backplane(), new SimpleMeterRegistry());
+            LongAdder routed = new LongAdder();
+            List<Disposable> routedSubscriptions = subscribe(service, subscribers, routed);
+            long routedNs = cpuPerEvent(threads, subscribers, event -> service.publish(event).block());
+            routedSubscriptions.forEach(Disposable::dispose);
+
+            Sinks.Many<NotificationEvent> shared = Sinks.many().multicast().directBestEffort();
+            LongAdder filtered = new LongAdder();
+            List<Disposable> filteredSubscriptions = new ArrayList<>();
+            for (int i = 0; i < subscribers; i++) {
+                String userId = "user-" + i;
+                filteredSubscriptions.add(shared.asFlux()
+                        .filter(event -> Objects.equals(event.userId(), userId) || "all".equals(event.userId()))
+                        .subscribe(event -> filtered.increment()));
+            }
+            long filteredNs = cpuPerEvent(threads, subscribers, shared::tryEmitNext);
+            filteredSubscriptions.forEach(Disposable::dispose);
+
+            log.info("Notification fan-out: subscribers={}, routed={}ns/event, sharedFilter={}ns/event, "
+                            + "delivered={}/{}", subscribers, routedNs, filteredNs, routed.sum(), filtered.sum());
+            if (subscribers >= 10_000) {
+                assertThat(routedNs).isLessThan(filteredNs);
+            }
+        }
+    }
+
+    private static LocalNotificationBackplane backplane() {
+        return new LocalNotificationBackplane(new NotificationInbox(new NotificationProperties()));
+    }
+
+    private static NotificationService node(NotificationBackplane backplane, MeterRegistry meterRegistry) {
+        NotificationProperties properties = new NotificationProperties();
+        properties.getIngest().setMaxDelayMs(0);
+        SseProperties sseProperties = new SseProperties();
+        sseProperties.setHeartbeatMs(0);
+        return new NotificationService(backplane,
+                new SseFanOut(sseProperties, meterRegistry), properties, meterRegistry);
+    }
+
+    private static List<Disposable> subscribe(NotificationService service, int subscribers, LongAdder delivered) {
+        List<Disposable> subscriptions = new ArrayList<>(subscribers);
+        for (int i = 0; i < subscribers; i++) {
+            subscriptions.add(service.stream("user-" + i, null)
+                    .filter(sse -> sse.data() != null)
+                    .subscribe(sse -> delivered.increment()));
+        }
+        return subscriptions;
+    }
+
+    private static long cpuPerEvent(ThreadMXBean threads, int subscribers,
+                                    Consumer<NotificationEvent> publisher) {
+        List<NotificationEvent> events = new ArrayList<>(EVENTS);
+        for (int i = 0; i < EVENTS; i++) {
+            events.add(event("user-" + ThreadLocalRandom.current().nextInt(subscribers)));
+        }
+        events.subList(0, EVENTS / 10).forEach(publisher);
+        long start = threads.getCurrentThreadCpuTime();
+        events.forEach(publisher);
+        return (threads.getCurrentThreadCpuTime() - start) / EVENTS;
+    }
+
+    private static NotificationEvent event(String userId) {
+        return new NotificationEvent(userId, "ORDER_STATUS", "Order updated", Map.of("orderId", "order-1"),
+                Instant.now());
+    }
+}
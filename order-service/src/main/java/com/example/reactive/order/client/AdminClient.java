@@ -1,7 +1,9 @@
 package com.example.reactive.order.client;
 
 import com.example.reactive.order.model.AdminEvent;
+import java.util.List;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
 import org.springframework.stereotype.Component;
 import org.springframework.web.reactive.function.client.WebClient;
 import reactor.core.publisher.Mono;
@@ -21,4 +23,13 @@ public class AdminClient {
                 .retrieve()
                 .bodyToMono(Void.class);
     }
+
+    public Mono<Void> publishRawBatch(List<String> payloads) {
+        return webClient.post()
+                .uri("/api/admin/events/batch")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue("[" + String.join(",", payloads) + "]")
+                .retrieve()
+                .bodyToMono(Void.class);
+    }
 }
@@ -1,10 +1,15 @@
 package com.example.reactive.order.client;
 
+import com.example.reactive.order.model.ProductEvent;
 import com.example.reactive.order.model.ProductSummary;
 import java.util.UUID;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.ServerSentEvent;
 import org.springframework.stereotype.Component;
 import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 @Component
@@ -21,4 +26,13 @@ public class ProductClient {
                 .retrieve()
                 .bodyToMono(ProductSummary.class);
     }
+
+    public Flux<ServerSentEvent<ProductEvent>> streamEvents() {
+        return webClient.get()
+                .uri("/api/products/stream")
+                .accept(MediaType.TEXT_EVENT_STREAM)
+                .retrieve()
+                .bodyToFlux(new ParameterizedTypeReference<ServerSentEvent<ProductEvent>>() {
+                });
+    }
 }
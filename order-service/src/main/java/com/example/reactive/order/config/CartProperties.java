@@ -0,0 +1,32 @@
+package com.example.reactive.order.config;
+
+import com.example.reactive.order.repository.CartLineSerializer;
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Component
+@ConfigurationProperties(prefix = "app.cart")
+@Getter
+@Setter
+public class CartProperties {
+    private CartLineSerializer.Format lineFormat = CartLineSerializer.Format.JSON;
+    private long ttlMs = 2_592_000_000L;
+    private long archiveAfterMs = 604_800_000L;
+    private long sweepIntervalMs = 3_600_000L;
+    private int sweepBatchSize = 500;
+    private Stream stream = new Stream();
+
+    public enum Backplane {
+        LOCAL,
+        REDIS
+    }
+
+    @Getter
+    @Setter
+    public static class Stream {
+        private Backplane backplane = Backplane.REDIS;
+        private long coalesceMs = 100;
+    }
+}
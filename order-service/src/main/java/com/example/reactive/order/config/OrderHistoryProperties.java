@@ -0,0 +1,15 @@
+package com.example.reactive.order.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Component
+@ConfigurationProperties(prefix = "app.orders.history")
+@Getter
+@Setter
+public class OrderHistoryProperties {
+    private int defaultPageSize = 20;
+    private int maxPageSize = 100;
+}
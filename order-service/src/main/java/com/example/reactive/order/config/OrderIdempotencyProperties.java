@@ -0,0 +1,18 @@
+package com.example.reactive.order.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Component
+@ConfigurationProperties(prefix = "app.orders.idempotency")
+@Getter
+@Setter
+public class OrderIdempotencyProperties {
+    private long ttlMs = 86_400_000L;
+    private long pendingTtlMs = 30_000L;
+    private long pollIntervalMs = 100L;
+    private int maxKeyLength = 128;
+    private int storeRetries = 3;
+}
@@ -1,15 +1,16 @@
 package com.example.reactive.order.config;
 
-import com.example.reactive.order.model.Cart;
+import com.example.reactive.order.repository.CartLineSerializer;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.data.redis.connection.ReactiveRedisConnectionFactory;
 import org.springframework.data.redis.core.ReactiveRedisTemplate;
-import org.springframework.data.redis.serializer.Jackson2JsonRedisSerializer;
+import org.springframework.data.redis.listener.ReactiveRedisMessageListenerContainer;
 import org.springframework.data.redis.serializer.RedisSerializationContext;
 import org.springframework.data.redis.serializer.RedisSerializationContext.SerializationPair;
+import org.springframework.data.redis.serializer.RedisSerializer;
 import org.springframework.data.redis.serializer.StringRedisSerializer;
 
 @Configuration
@@ -22,17 +23,21 @@ public class RedisConfig {
     }
 
     @Bean
-    public ReactiveRedisTemplate<String, Cart> cartRedisTemplate(
-            ReactiveRedisConnectionFactory factory,
-            ObjectMapper objectMapper
-    ) {
-        Jackson2JsonRedisSerializer<Cart> serializer = new Jackson2JsonRedisSerializer<>(Cart.class);
-        serializer.setObjectMapper(objectMapper);
+    public CartLineSerializer cartLineSerializer(CartProperties properties, ObjectMapper objectMapper) {
+        return new CartLineSerializer(properties.getLineFormat(), objectMapper);
+    }
 
-        RedisSerializationContext<String, Cart> context = RedisSerializationContext
-                .<String, Cart>newSerializationContext(new StringRedisSerializer())
-                .value(SerializationPair.fromSerializer(serializer))
+    @Bean
+    public ReactiveRedisTemplate<String, byte[]> cartRedisTemplate(ReactiveRedisConnectionFactory factory) {
+        RedisSerializationContext<String, byte[]> context = RedisSerializationContext
+                .<String, byte[]>newSerializationContext(new StringRedisSerializer())
+                .value(SerializationPair.fromSerializer(RedisSerializer.byteArray()))
                 .build();
         return new ReactiveRedisTemplate<>(factory, context);
     }
+
+    @Bean
+    public ReactiveRedisMessageListenerContainer redisMessageListenerContainer(ReactiveRedisConnectionFactory factory) {
+        return new ReactiveRedisMessageListenerContainer(factory);
+    }
 }
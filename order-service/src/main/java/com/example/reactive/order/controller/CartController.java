@@ -40,13 +40,7 @@ public class CartController {
     @GetMapping(value = "/stream/{userId}", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
     @Operation(summary = "Stream cart updates")
     public Flux<ServerSentEvent<CartResponse>> stream(@PathVariable String userId) {
-        return cartService.getCart(userId)
-                .map(cart -> ServerSentEvent.builder(cart)
-                        .event("CART_SNAPSHOT")
-                        .id(cart.updatedAt().toString())
-                        .build())
-                .flux()
-                .concatWith(cartStreamService.stream(userId));
+        return cartStreamService.stream(userId, cartService.getCart(userId));
     }
 
     @PostMapping("/{userId}/items")
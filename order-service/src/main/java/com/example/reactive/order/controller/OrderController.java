@@ -1,8 +1,10 @@
 package com.example.reactive.order.controller;
 
 import com.example.reactive.order.model.CreateOrderRequest;
+import com.example.reactive.order.model.OrderPage;
 import com.example.reactive.order.model.OrderResponse;
 import com.example.reactive.order.model.UpdateOrderStatusRequest;
+import com.example.reactive.order.service.OrderIdempotencyService;
 import com.example.reactive.order.service.OrderService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
@@ -10,11 +12,13 @@ import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import java.util.UUID;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.server.reactive.ServerHttpResponse;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PatchMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
@@ -26,12 +30,19 @@ import reactor.core.publisher.Mono;
 @Tag(name = "Orders")
 @RequiredArgsConstructor
 public class OrderController {
+    public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+    public static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
+
     private final OrderService orderService;
+    private final OrderIdempotencyService idempotencyService;
 
     @PostMapping
-    @Operation(summary = "Create order from cart")
-    public Mono<OrderResponse> createOrder(@Valid @RequestBody CreateOrderRequest request) {
-        return orderService.createOrder(request);
+    @Operation(summary = "Create order from cart (retries with the same Idempotency-Key replay the first result)")
+    public Mono<OrderResponse> createOrder(
+            @Parameter(description = "Client-generated key identifying this checkout attempt")
+            @RequestHeader(value = IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey,
+            @Valid @RequestBody CreateOrderRequest request) {
+        return idempotencyService.execute(idempotencyKey, request, () -> orderService.createOrder(request));
     }
 
     @GetMapping("/{orderId}")
@@ -41,9 +52,19 @@ public class OrderController {
     }
 
     @GetMapping
-    @Operation(summary = "Get orders by user")
-    public Flux<OrderResponse> getOrders(@Parameter(description = "User id") @RequestParam String userId) {
-        return orderService.getOrdersByUser(userId);
+    @Operation(summary = "Get orders by user, newest first (next page cursor in X-Next-Cursor header)")
+    public Flux<OrderResponse> getOrders(
+            @Parameter(description = "User id") @RequestParam String userId,
+            @Parameter(description = "Page cursor") @RequestParam(required = false) String cursor,
+            @Parameter(description = "Page size") @RequestParam(required = false) Integer size,
+            ServerHttpResponse response) {
+        return orderService.getOrdersByUser(userId, cursor, size)
+                .doOnNext(page -> {
+                    if (page.nextCursor() != null) {
+                        response.getHeaders().set(NEXT_CURSOR_HEADER, page.nextCursor());
+                    }
+                })
+                .flatMapIterable(OrderPage::items);
     }
 
     @PatchMapping("/{orderId}/status")
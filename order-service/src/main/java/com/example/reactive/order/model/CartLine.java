@@ -0,0 +1,11 @@
+package com.example.reactive.order.model;
+
+import java.math.BigDecimal;
+
+public record CartLine(
+        String name,
+        BigDecimal price,
+        String currency,
+        String imageUrl
+) {
+}
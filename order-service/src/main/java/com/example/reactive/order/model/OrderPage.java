@@ -0,0 +1,9 @@
+package com.example.reactive.order.model;
+
+import java.util.List;
+
+public record OrderPage(
+        List<OrderResponse> items,
+        String nextCursor
+) {
+}
@@ -0,0 +1,12 @@
+package com.example.reactive.order.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import java.time.Instant;
+
+@JsonIgnoreProperties(ignoreUnknown = true)
+public record ProductEvent(
+        String type,
+        ProductSummary product,
+        Instant timestamp
+) {
+}
@@ -0,0 +1,20 @@
+package com.example.reactive.order.outbox;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+import lombok.Getter;
+import lombok.Setter;
+
+@Component
+@ConfigurationProperties(prefix = "app.outbox")
+@Getter
+@Setter
+public class OrderOutboxProperties {
+    private long pollIntervalMs = 1000;
+    private int batchSize = 200;
+    private int maxAttempts = 10;
+    private long initialBackoffMs = 500;
+    private long maxBackoffMs = 10000;
+    private int publishConcurrency = 4;
+    private long leaseMs = 30000;
+}
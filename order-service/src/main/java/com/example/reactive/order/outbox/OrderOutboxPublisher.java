@@ -0,0 +1,20 @@
+package com.example.reactive.order.outbox;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class OrderOutboxPublisher {
+    private final OrderOutboxService outboxService;
+
+    @Scheduled(fixedDelayString = "${app.outbox.poll-interval-ms:1000}")
+    public void publish() {
+        outboxService.publishPendingEvents()
+                .doOnError(error -> log.warn("Outbox publish cycle failed", error))
+                .subscribe();
+    }
+}
@@ -0,0 +1,172 @@
+package com.example.reactive.order.outbox;
+
+import io.r2dbc.spi.Row;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.StringJoiner;
+import java.util.UUID;
+import lombok.RequiredArgsConstructor;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+@Repository
+@RequiredArgsConstructor
+public class OrderOutboxRepository {
+    private final DatabaseClient databaseClient;
+
+    public Mono<Void> insertAll(List<OrderOutboxEvent> events) {
+        if (events.isEmpty()) {
+            return Mono.empty();
+        }
+        StringJoiner values = new StringJoiner(",\n    ");
+        for (int i = 0; i < events.size(); i++) {
+            values.add(String.format("(:id%1$d, :orderId%1$d, :target%1$d, :eventType%1$d, :payload%1$d, "
+                    + ":status%1$d, :attempts%1$d, :nextAttemptAt%1$d, NULL, NULL, :createdAt%1$d)", i));
+        }
+        DatabaseClient.GenericExecuteSpec spec = databaseClient.sql("""
+                INSERT INTO order_outbox (
+                    id,
+                    order_id,
+                    target,
+                    event_type,
+                    payload,
+                    status,
+                    attempts,
+                    next_attempt_at,
+                    last_attempt_at,
+                    sent_at,
+                    created_at
+                ) VALUES
+                    %s
+                """.formatted(values));
+        for (int i = 0; i < events.size(); i++) {
+            OrderOutboxEvent event = events.get(i);
+            spec = spec.bind("id" + i, event.getId())
+                    .bind("orderId" + i, event.getOrderId())
+                    .bind("target" + i, event.getTarget().name())
+                    .bind("eventType" + i, event.getEventType())
+                    .bind("payload" + i, event.getPayload())
+                    .bind("status" + i, event.getStatus().name())
+                    .bind("attempts" + i, event.getAttempts())
+                    .bind("nextAttemptAt" + i, event.getNextAttemptAt())
+                    .bind("createdAt" + i, event.getCreatedAt());
+        }
+        return spec.fetch().rowsUpdated().then();
+    }
+
+    public Flux<OrderOutboxEvent> claimReadyEvents(int limit, int maxAttempts, Instant now, Duration lease) {
+        return databaseClient.sql("""
+                        WITH claimed AS (
+                            UPDATE order_outbox
+                            SET status = CASE WHEN attempts < :maxAttempts THEN 'PROCESSING' ELSE 'DEAD' END,
+                                attempts = CASE WHEN attempts < :maxAttempts THEN attempts + 1 ELSE attempts END,
+                                last_attempt_at = :now,
+                                lease_expires_at = CASE WHEN attempts < :maxAttempts THEN :leaseExpiresAt END
+                            WHERE id IN (
+                                SELECT id
+                                FROM order_outbox
+                                WHERE (status IN ('PENDING', 'FAILED')
+                                        AND attempts < :maxAttempts
+                                        AND (next_attempt_at IS NULL OR next_attempt_at <= :now))
+                                   OR (status = 'PROCESSING'
+                                        AND (lease_expires_at <= :now
+                                            OR (lease_expires_at IS NULL AND last_attempt_at <= :staleBefore)))
+                                ORDER BY created_at
+                                LIMIT :limit
+                                FOR UPDATE SKIP LOCKED
+                            )
+                            RETURNING id,
+                                      order_id,
+                                      target,
+                                      event_type,
+                                      payload,
+                                      status,
+                                      attempts,
+                                      next_attempt_at,
+                                      last_attempt_at,
+                                      sent_at,
+                                      created_at,
+                                      lease_expires_at
+                        )
+                        SELECT * FROM claimed WHERE status = 'PROCESSING'
+                        """)
+                .bind("now", now)
+                .bind("leaseExpiresAt", now.plus(lease))
+                .bind("staleBefore", now.minus(lease))
+                .bind("maxAttempts", maxAttempts)
+                .bind("limit", limit)
+                .map((row, metadata) -> toEvent(row))
+                .all();
+    }
+
+    public Mono<Void> markSent(UUID[] ids, Instant sentAt) {
+        return databaseClient.sql("""
+                        UPDATE order_outbox
+                        SET status = 'SENT',
+                            sent_at = :sentAt,
+                            lease_expires_at = NULL
+                        WHERE id = ANY(:ids)
+                        """)
+                .bind("sentAt", sentAt)
+                .bind("ids", ids)
+                .fetch()
+                .rowsUpdated()
+                .then();
+    }
+
+    public Mono<Void> markFailed(UUID[] ids, Instant nextAttemptAt) {
+        return databaseClient.sql("""
+                        UPDATE order_outbox
+                        SET status = 'FAILED',
+                            next_attempt_at = :nextAttemptAt,
+                            lease_expires_at = NULL
+                        WHERE id = ANY(:ids)
+                        """)
+                .bind("nextAttemptAt", nextAttemptAt)
+                .bind("ids", ids)
+                .fetch()
+                .rowsUpdated()
+                .then();
+    }
+
+    public Mono<Void> markDead(UUID[] ids) {
+        return databaseClient.sql("""
+                        UPDATE order_outbox
+                        SET status = 'DEAD',
+                            lease_expires_at = NULL
+                        WHERE id = ANY(:ids)
+                        """)
+                .bind("ids", ids)
+                .fetch()
+                .rowsUpdated()
+                .then();
+    }
+
+    public Mono<Void> deleteAll() {
+        return databaseClient.sql("DELETE FROM order_outbox")
+                .fetch()
+                .rowsUpdated()
+                .then();
+    }
+
+    private OrderOutboxEvent toEvent(Row row) {
+        OrderOutboxEvent event = new OrderOutboxEvent();
+        event.setId(row.get("id", UUID.class));
+        event.setOrderId(row.get("order_id", UUID.class));
+        event.setTarget(OutboxTarget.valueOf(row.get("target", String.class)));
+        event.setEventType(row.get("event_type", String.class));
+        event.setPayload(row.get("payload", String.class));
+        event.setStatus(OutboxStatus.valueOf(row.get("status", String.class)));
+        Integer attempts = row.get("attempts", Integer.class);
+        event.setAttempts(attempts == null ? 0 : attempts);
+        event.setNextAttemptAt(row.get("next_attempt_at", Instant.class));
+        event.setLastAttemptAt(row.get("last_attempt_at", Instant.class));
+        event.setSentAt(row.get("sent_at", Instant.class));
+        event.setCreatedAt(row.get("created_at", Instant.class));
+        event.setLeaseExpiresAt(row.get("lease_expires_at", Instant.class));
+        return event;
+    }
+}
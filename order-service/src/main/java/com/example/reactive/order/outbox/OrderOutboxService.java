@@ -0,0 +1,173 @@
+package com.example.reactive.order.outbox;
+
+import com.example.reactive.order.client.AdminClient;
+import com.example.reactive.order.client.NotificationClient;
+import com.example.reactive.order.model.AdminEvent;
+import com.example.reactive.order.model.NotificationEvent;
+import com.example.reactive.order.model.Order;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Collectors;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Service;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class OrderOutboxService {
+    private static final Set<Integer> REJECTED_STATUSES = Set.of(400, 413, 415, 422);
+
+    private final OrderOutboxRepository repository;
+    private final OrderOutboxProperties properties;
+    private final ObjectMapper objectMapper;
+    private final NotificationClient notificationClient;
+    private final AdminClient adminClient;
+
+    public Mono<Void> enqueueOrderCreated(Order order) {
+        return enqueueOrderEvents(order, "ORDER_CREATED", "Order created");
+    }
+
+    public Mono<Void> enqueueStatusChanged(Order order, String reason) {
+        return enqueueOrderEvents(order, "ORDER_STATUS", reason == null ? "Order status updated" : reason);
+    }
+
+    public Mono<Void> publishPendingEvents() {
+        Instant now = Instant.now();
+        return repository.claimReadyEvents(properties.getBatchSize(), properties.getMaxAttempts(), now,
+                        Duration.ofMillis(properties.getLeaseMs()))
+                .collectList()
+                .flatMapMany(events -> Flux.fromIterable(events.stream()
+                        .collect(Collectors.groupingBy(OrderOutboxEvent::getTarget))
+                        .entrySet()))
+                .flatMap(entry -> publishBatch(entry.getKey(), entry.getValue()), properties.getPublishConcurrency())
+                .then();
+    }
+
+    private Mono<Void> enqueueOrderEvents(Order order, String type, String message) {
+        NotificationEvent notificationEvent = new NotificationEvent(
+                order.getUserId(),
+                type,
+                message,
+                Map.of("orderId", order.getId(), "status", order.getStatus()),
+                Instant.now()
+        );
+        AdminEvent adminEvent = new AdminEvent(type, order.getId(), Instant.now());
+        return Mono.fromCallable(() -> List.of(
+                        newEvent(order, OutboxTarget.NOTIFICATION, type, objectMapper.writeValueAsString(notificationEvent)),
+                        newEvent(order, OutboxTarget.ADMIN, type, objectMapper.writeValueAsString(adminEvent))))
+                .subscribeOn(Schedulers.boundedElastic())
+                .flatMap(repository::insertAll);
+    }
+
+    private OrderOutboxEvent newEvent(Order order, OutboxTarget target, String eventType, String payload) {
+        Instant now = Instant.now();
+        return new OrderOutboxEvent(
+                UUID.randomUUID(),
+                order.getId(),
+                target,
+                eventType,
+                payload,
+                OutboxStatus.PENDING,
+                0,
+                now,
+                null,
+                null,
+                now,
+                null
+        );
+    }
+
+    private Mono<Void> publishBatch(OutboxTarget target, List<OrderOutboxEvent> events) {
+        List<String> payloads = events.stream()
+                .map(OrderOutboxEvent::getPayload)
+                .toList();
+        return dispatchBatch(target, payloads)
+                .then(Mono.defer(() -> repository.markSent(ids(events), Instant.now())))
+                .onErrorResume(error -> {
+                    if (isRejected(error) && events.size() > 1) {
+                        log.warn("Outbox batch rejected, publishing events one by one: target={}, size={}, status={}",
+                                target, events.size(), ((WebClientResponseException) error).getStatusCode());
+                        return Flux.fromIterable(events)
+                                .concatMap(event -> publishBatch(target, List.of(event)))
+                                .then();
+                    }
+                    if (isRejected(error)) {
+                        log.warn("Outbox event rejected, dead-lettering: id={}, target={}, status={}",
+                                events.get(0).getId(), target, ((WebClientResponseException) error).getStatusCode());
+                        return repository.markDead(ids(events));
+                    }
+                    log.warn("Failed to publish outbox batch: target={}, size={}", target, events.size(), error);
+                    return Flux.fromIterable(events.stream()
+                                    .collect(Collectors.groupingBy(OrderOutboxEvent::getAttempts))
+                                    .entrySet())
+                            .concatMap(entry -> entry.getKey() >= properties.getMaxAttempts()
+                                    ? repository.markDead(ids(entry.getValue()))
+                                    : repository.markFailed(ids(entry.getValue()), nextAttemptAt(entry.getKey(), error)))
+                            .then();
+                });
+    }
+
+    private Mono<Void> dispatchBatch(OutboxTarget target, List<String> payloads) {
+        return switch (target) {
+            case ADMIN -> adminClient.publishRawBatch(payloads);
+            case NOTIFICATION -> notificationClient.publishRawBatch(payloads);
+        };
+    }
+
+    private boolean isRejected(Throwable error) {
+        return error instanceof WebClientResponseException response && REJECTED_STATUSES.contains(response.getStatusCode().value());
+    }
+
+    private UUID[] ids(Collection<OrderOutboxEvent> events) {
+        return events.stream()
+                .map(OrderOutboxEvent::getId)
+                .toArray(UUID[]::new);
+    }
+
+    private Instant nextAttemptAt(int attempts, Throwable error) {
+        Instant backoff = nextAttemptAt(attempts);
+        Instant retryAfter = retryAfter(error);
+        return retryAfter != null && retryAfter.isAfter(backoff) ? retryAfter : backoff;
+    }
+
+    private Instant retryAfter(Throwable error) {
+        if (!(error instanceof WebClientResponseException response)) {
+            return null;
+        }
+        String value = response.getHeaders().getFirst(HttpHeaders.RETRY_AFTER);
+        if (value == null || value.isBlank()) {
+            return null;
+        }
+        try {
+            return Instant.now().plusSeconds(Long.parseLong(value.trim()));
+        } catch (NumberFormatException e) {
+            try {
+                return ZonedDateTime.parse(value.trim(), DateTimeFormatter.RFC_1123_DATE_TIME).toInstant();
+            } catch (DateTimeParseException ignored) {
+                return null;
+            }
+        }
+    }
+
+    private Instant nextAttemptAt(int attempts) {
+        int exponent = Math.min(attempts - 1, 10);
+        long backoff = properties.getInitialBackoffMs() * (1L << Math.max(exponent, 0));
+        long bounded = Math.min(backoff, properties.getMaxBackoffMs());
+        return Instant.now().plusMillis(bounded);
+    }
+}
@@ -0,0 +1,9 @@
+package com.example.reactive.order.outbox;
+
+public enum OutboxStatus {
+    PENDING,
+    PROCESSING,
+    SENT,
+    FAILED,
+    DEAD
+}
@@ -0,0 +1,6 @@
+package com.example.reactive.order.outbox;
+
+public enum OutboxTarget {
+    ADMIN,
+    NOTIFICATION
+}
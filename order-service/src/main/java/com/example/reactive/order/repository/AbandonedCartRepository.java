@@ -0,0 +1,53 @@
+package com.example.reactive.order.repository;
+
+import com.example.reactive.order.model.Cart;
+import java.time.Instant;
+import lombok.RequiredArgsConstructor;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Mono;
+
+@Repository
+@RequiredArgsConstructor
+public class AbandonedCartRepository {
+    private final DatabaseClient databaseClient;
+
+    public Mono<Void> upsert(Cart cart, String itemsJson, Instant archivedAt) {
+        return databaseClient.sql("""
+                        INSERT INTO abandoned_carts (
+                            user_id,
+                            items,
+                            item_count,
+                            total,
+                            currency,
+                            updated_at,
+                            archived_at
+                        ) VALUES (
+                            :userId,
+                            :items,
+                            :itemCount,
+                            :total,
+                            :currency,
+                            :updatedAt,
+                            :archivedAt
+                        )
+                        ON CONFLICT (user_id) DO UPDATE
+                        SET items = EXCLUDED.items,
+                            item_count = EXCLUDED.item_count,
+                            total = EXCLUDED.total,
+                            currency = EXCLUDED.currency,
+                            updated_at = EXCLUDED.updated_at,
+                            archived_at = EXCLUDED.archived_at
+                        """)
+                .bind("userId", cart.getUserId())
+                .bind("items", itemsJson)
+                .bind("itemCount", cart.getItems().size())
+                .bind("total", cart.getTotal())
+                .bind("currency", cart.getCurrency())
+                .bind("updatedAt", cart.getUpdatedAt())
+                .bind("archivedAt", archivedAt)
+                .fetch()
+                .rowsUpdated()
+                .then();
+    }
+}
@@ -0,0 +1,164 @@
+package com.example.reactive.order.repository;
+
+import com.example.reactive.order.model.CartLine;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
+
+public class CartLineSerializer implements RedisSerializer<CartLine> {
+    static final byte BINARY_V1 = 1;
+    private static final byte JSON_START = '{';
+
+    public enum Format {
+        JSON,
+        BINARY
+    }
+
+    private final Format format;
+    private final ObjectMapper objectMapper;
+
+    public CartLineSerializer(Format format, ObjectMapper objectMapper) {
+        this.format = format;
+        this.objectMapper = objectMapper;
+    }
+
+    public Format getFormat() {
+        return format;
+    }
+
+    @Override
+    public byte[] serialize(CartLine line) {
+        if (line == null) {
+            return new byte[0];
+        }
+        return format == Format.BINARY ? writeBinary(line) : writeJson(line);
+    }
+
+    @Override
+    public CartLine deserialize(byte[] bytes) {
+        if (bytes == null || bytes.length == 0) {
+            return null;
+        }
+        if (bytes[0] == JSON_START) {
+            return readJson(bytes);
+        }
+        if (bytes[0] == BINARY_V1) {
+            return readBinary(bytes);
+        }
+        throw new SerializationException("Unknown cart line format: " + bytes[0]);
+    }
+
+    private byte[] writeJson(CartLine line) {
+        try {
+            return objectMapper.writeValueAsBytes(line);
+        } catch (IOException e) {
+            throw new SerializationException("Failed to write cart line", e);
+        }
+    }
+
+    private CartLine readJson(byte[] bytes) {
+        try {
+            return objectMapper.readValue(bytes, CartLine.class);
+        } catch (IOException e) {
+            throw new SerializationException("Failed to read cart line", e);
+        }
+    }
+
+    private static byte[] writeBinary(CartLine line) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(64);
+        out.write(BINARY_V1);
+        writeString(out, line.name());
+        if (line.price() == null) {
+            writeVarint(out, 0);
+        } else {
+            byte[] unscaled = line.price().unscaledValue().toByteArray();
+            writeVarint(out, unscaled.length + 1L);
+            out.write(unscaled, 0, unscaled.length);
+            writeVarint(out, zigZag(line.price().scale()));
+        }
+        writeString(out, line.currency());
+        writeString(out, line.imageUrl());
+        return out.toByteArray();
+    }
+
+    private static CartLine readBinary(byte[] bytes) {
+        try {
+            ByteBuffer in = ByteBuffer.wrap(bytes, 1, bytes.length - 1);
+            String name = readString(in);
+            BigDecimal price = null;
+            int unscaledLength = readLength(in);
+            if (unscaledLength > 0) {
+                byte[] unscaled = new byte[unscaledLength - 1];
+                in.get(unscaled);
+                int scale = unZigZag(readVarint(in));
+                price = new BigDecimal(new BigInteger(unscaled), scale);
+            }
+            return new CartLine(name, price, readString(in), readString(in));
+        } catch (BufferUnderflowException | NumberFormatException e) {
+            throw new SerializationException("Truncated cart line", e);
+        }
+    }
+
+    private static void writeString(ByteArrayOutputStream out, String value) {
+        if (value == null) {
+            writeVarint(out, 0);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        writeVarint(out, bytes.length + 1L);
+        out.write(bytes, 0, bytes.length);
+    }
+
+    private static String readString(ByteBuffer in) {
+        int length = readLength(in);
+        if (length == 0) {
+            return null;
+        }
+        String value = new String(in.array(), in.position(), length - 1, StandardCharsets.UTF_8);
+        in.position(in.position() + length - 1);
+        return value;
+    }
+
+    private static int readLength(ByteBuffer in) {
+        long length = readVarint(in);
+        if (length < 0 || length - 1 > in.remaining()) {
+            throw new BufferUnderflowException();
+        }
+        return (int) length;
+    }
+
+    private static void writeVarint(ByteArrayOutputStream out, long value) {
+        while ((value & ~0x7FL) != 0) {
+            out.write((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.write((int) value);
+    }
+
+    private static long readVarint(ByteBuffer in) {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            byte b = in.get();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new SerializationException("Malformed varint in cart line");
+    }
+
+    private static long zigZag(int value) {
+        return ((long) value << 1) ^ (value >> 31);
+    }
+
+    private static int unZigZag(long value) {
+        return (int) (value >>> 1) ^ -(int) (value & 1);
+    }
+}
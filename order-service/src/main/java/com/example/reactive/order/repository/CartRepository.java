@@ -0,0 +1,376 @@
+package com.example.reactive.order.repository;
+
+import com.example.reactive.order.config.CartProperties;
+import com.example.reactive.order.model.Cart;
+import com.example.reactive.order.model.CartItem;
+import com.example.reactive.order.model.CartLine;
+import com.example.reactive.order.model.ProductSummary;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import org.springframework.data.redis.core.ReactiveRedisTemplate;
+import org.springframework.data.redis.core.ScanOptions;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+@Repository
+public class CartRepository {
+    private static final String CART_KEY_PREFIX = "cart:";
+    private static final String DEFAULT_CURRENCY = "USD";
+    private static final String ITEM_PREFIX = "item:";
+    private static final String QTY_PREFIX = "qty:";
+    private static final String POS_PREFIX = "pos:";
+    private static final String CURRENCY_FIELD = "currency";
+    private static final String UPDATED_AT_FIELD = "updatedAt";
+    private static final String OK = "OK";
+    private static final String UNCHANGED = "UNCHANGED";
+    private static final String MISSING = "MISSING";
+    private static final String LEGACY = "LEGACY";
+
+    private static final String PRELUDE = """
+            if redis.call('TYPE', KEYS[1]).ok == 'string' then
+                return {'LEGACY'}
+            end
+            local function result(status)
+                if tonumber(ARGV[1]) > 0 and redis.call('EXISTS', KEYS[1]) == 1 then
+                    redis.call('PEXPIRE', KEYS[1], ARGV[1])
+                end
+                local cart = redis.call('HGETALL', KEYS[1])
+                table.insert(cart, 1, status)
+                return cart
+            end
+            """;
+
+    @SuppressWarnings("rawtypes")
+    private static final RedisScript<List> GET_SCRIPT = RedisScript.of(PRELUDE + """
+            return result('OK')
+            """, List.class);
+
+    @SuppressWarnings("rawtypes")
+    private static final RedisScript<List> ADD_SCRIPT = RedisScript.of(PRELUDE + """
+            local itemField = 'item:' .. ARGV[2]
+            if redis.call('HEXISTS', KEYS[1], itemField) == 1 then
+                redis.call('HINCRBY', KEYS[1], 'qty:' .. ARGV[2], ARGV[3])
+            elseif ARGV[4] == '' then
+                return {'MISSING'}
+            else
+                local pos = redis.call('HINCRBY', KEYS[1], 'seq', 1)
+                redis.call('HSET', KEYS[1], itemField, ARGV[4], 'qty:' .. ARGV[2], ARGV[3],
+                        'pos:' .. ARGV[2], pos, 'currency', ARGV[5])
+            end
+            redis.call('HSET', KEYS[1], 'updatedAt', ARGV[6])
+            return result('OK')
+            """, List.class);
+
+    @SuppressWarnings("rawtypes")
+    private static final RedisScript<List> UPDATE_SCRIPT = RedisScript.of(PRELUDE + """
+            local qtyField = 'qty:' .. ARGV[2]
+            if redis.call('HEXISTS', KEYS[1], 'item:' .. ARGV[2]) == 0
+                    or redis.call('HGET', KEYS[1], qtyField) == ARGV[3] then
+                return result('UNCHANGED')
+            end
+            if ARGV[3] == '0' then
+                redis.call('HDEL', KEYS[1], 'item:' .. ARGV[2], qtyField, 'pos:' .. ARGV[2])
+            else
+                redis.call('HSET', KEYS[1], qtyField, ARGV[3])
+            end
+            redis.call('HSET', KEYS[1], 'updatedAt', ARGV[4])
+            return result('OK')
+            """, List.class);
+
+    @SuppressWarnings("rawtypes")
+    private static final RedisScript<List> REMOVE_SCRIPT = RedisScript.of(PRELUDE + """
+            redis.call('HDEL', KEYS[1], 'item:' .. ARGV[2], 'qty:' .. ARGV[2], 'pos:' .. ARGV[2])
+            redis.call('HSET', KEYS[1], 'updatedAt', ARGV[3])
+            return result('OK')
+            """, List.class);
+
+    @SuppressWarnings("rawtypes")
+    private static final RedisScript<List> MIGRATE_SCRIPT = RedisScript.of("""
+            if redis.call('TYPE', KEYS[1]).ok == 'string' and redis.call('GET', KEYS[1]) == ARGV[2] then
+                redis.call('DEL', KEYS[1])
+                if #ARGV > 2 then
+                    redis.call('HSET', KEYS[1], unpack(ARGV, 3))
+                    if tonumber(ARGV[1]) > 0 then
+                        redis.call('PEXPIRE', KEYS[1], ARGV[1])
+                    end
+                end
+            end
+            return {'OK'}
+            """, List.class);
+
+    @SuppressWarnings("rawtypes")
+    private static final RedisScript<List> PEEK_SCRIPT = RedisScript.of("""
+            if redis.call('TYPE', KEYS[1]).ok ~= 'hash' then
+                return {'MISSING'}
+            end
+            local cart = redis.call('HGETALL', KEYS[1])
+            table.insert(cart, 1, 'OK')
+            return cart
+            """, List.class);
+
+    @SuppressWarnings("rawtypes")
+    private static final RedisScript<List> INSPECT_SCRIPT = RedisScript.of("""
+            local stats = {}
+            for _, key in ipairs(KEYS) do
+                local keyType = redis.call('TYPE', key).ok
+                local ttl = redis.call('PTTL', key)
+                local bytes = 0
+                if keyType ~= 'none' then
+                    if ttl == -1 and tonumber(ARGV[1]) > 0 then
+                        redis.call('PEXPIRE', key, ARGV[1])
+                        ttl = tonumber(ARGV[1])
+                    end
+                    bytes = redis.call('MEMORY', 'USAGE', key) or 0
+                end
+                table.insert(stats, keyType)
+                table.insert(stats, tostring(ttl))
+                table.insert(stats, tostring(bytes))
+            end
+            return stats
+            """, List.class);
+
+    private static final RedisScript<Long> DELETE_IF_IDLE_SCRIPT = RedisScript.of("""
+            local ttl = redis.call('PTTL', KEYS[1])
+            if ttl >= 0 and ttl <= tonumber(ARGV[1]) then
+                return redis.call('DEL', KEYS[1])
+            end
+            return 0
+            """, Long.class);
+
+    private final ReactiveRedisTemplate<String, byte[]> redisTemplate;
+    private final CartLineSerializer lineSerializer;
+    private final ObjectMapper objectMapper;
+    private final CartProperties properties;
+
+    public CartRepository(ReactiveRedisTemplate<String, byte[]> cartRedisTemplate,
+                          CartLineSerializer lineSerializer,
+                          ObjectMapper objectMapper,
+                          CartProperties properties) {
+        this.redisTemplate = cartRedisTemplate;
+        this.lineSerializer = lineSerializer;
+        this.objectMapper = objectMapper;
+        this.properties = properties;
+    }
+
+    public Mono<Cart> find(String userId) {
+        return execute(GET_SCRIPT, userId).map(CartUpdate::cart);
+    }
+
+    public Mono<Cart> addItem(String userId, UUID productId, int quantity, ProductSummary product) {
+        byte[] line = product == null ? new byte[0] : encodeLine(product);
+        String currency = product == null || product.currency() == null ? DEFAULT_CURRENCY : product.currency();
+        return execute(ADD_SCRIPT, userId, bytes(productId.toString()), bytes(Integer.toString(quantity)), line,
+                bytes(currency), now())
+                .filter(CartUpdate::changed)
+                .map(CartUpdate::cart);
+    }
+
+    public Mono<CartUpdate> updateItem(String userId, UUID productId, int quantity) {
+        return execute(UPDATE_SCRIPT, userId, bytes(productId.toString()), bytes(Integer.toString(quantity)), now());
+    }
+
+    public Mono<Cart> removeItem(String userId, UUID productId) {
+        return execute(REMOVE_SCRIPT, userId, bytes(productId.toString()), now()).map(CartUpdate::cart);
+    }
+
+    public Flux<String> scanKeys(int batchSize) {
+        return redisTemplate.scan(ScanOptions.scanOptions().match(CART_KEY_PREFIX + "*").count(batchSize).build());
+    }
+
+    @SuppressWarnings({"rawtypes", "unchecked"})
+    public Flux<CartKeyStats> inspect(List<String> keys) {
+        return redisTemplate.execute(INSPECT_SCRIPT, keys, List.of(ttlArg()))
+                .next()
+                .flatMapMany(result -> {
+                    List<byte[]> values = (List<byte[]>) result;
+                    List<CartKeyStats> stats = new ArrayList<>(keys.size());
+                    for (int i = 0; i < keys.size(); i++) {
+                        stats.add(new CartKeyStats(
+                                keys.get(i).substring(CART_KEY_PREFIX.length()),
+                                string(values.get(i * 3)),
+                                Long.parseLong(string(values.get(i * 3 + 1))),
+                                Long.parseLong(string(values.get(i * 3 + 2)))
+                        ));
+                    }
+                    return Flux.fromIterable(stats);
+                });
+    }
+
+    @SuppressWarnings({"rawtypes", "unchecked"})
+    public Mono<Cart> peek(String userId) {
+        String key = cartKey(userId);
+        return redisTemplate.execute(PEEK_SCRIPT, List.of(key), List.of())
+                .next()
+                .flatMap(result -> {
+                    List<byte[]> values = (List<byte[]>) result;
+                    return OK.equals(string(values.get(0)))
+                            ? Mono.just(decode(userId, values.subList(1, values.size())))
+                            : Mono.empty();
+                });
+    }
+
+    public Mono<Boolean> deleteIfIdle(String userId, long maxRemainingTtlMs) {
+        return redisTemplate.execute(DELETE_IF_IDLE_SCRIPT, List.of(cartKey(userId)),
+                        List.of(bytes(Long.toString(maxRemainingTtlMs))))
+                .next()
+                .map(deleted -> deleted > 0);
+    }
+
+    public Mono<Boolean> delete(String userId) {
+        return redisTemplate.delete(cartKey(userId)).map(deleted -> deleted > 0);
+    }
+
+    public Cart emptyCart(String userId) {
+        return new Cart(userId, new ArrayList<>(), BigDecimal.ZERO, DEFAULT_CURRENCY, Instant.now());
+    }
+
+    @SuppressWarnings("rawtypes")
+    private Mono<CartUpdate> execute(RedisScript<List> script, String userId, byte[]... args) {
+        String key = cartKey(userId);
+        byte[][] scriptArgs = new byte[args.length + 1][];
+        scriptArgs[0] = ttlArg();
+        System.arraycopy(args, 0, scriptArgs, 1, args.length);
+        return runScript(script, key, scriptArgs)
+                .flatMap(result -> LEGACY.equals(result.status())
+                        ? migrateLegacy(key).then(runScript(script, key, scriptArgs))
+                        : Mono.just(result))
+                .flatMap(result -> switch (result.status()) {
+                    case OK -> Mono.just(new CartUpdate(decode(userId, result.fields()), true));
+                    case UNCHANGED -> Mono.just(new CartUpdate(decode(userId, result.fields()), false));
+                    case MISSING -> Mono.empty();
+                    default -> Mono.error(new IllegalStateException("Unexpected cart script status: " + result.status()));
+                });
+    }
+
+    @SuppressWarnings({"rawtypes", "unchecked"})
+    private Mono<ScriptResult> runScript(RedisScript<List> script, String key, byte[]... args) {
+        return redisTemplate.execute(script, List.of(key), List.of((Object[]) args))
+                .next()
+                .map(result -> {
+                    List<byte[]> values = (List<byte[]>) result;
+                    return new ScriptResult(string(values.get(0)), values.subList(1, values.size()));
+                });
+    }
+
+    private Mono<Void> migrateLegacy(String key) {
+        return redisTemplate.opsForValue()
+                .get(key)
+                .flatMap(json -> {
+                    Cart legacy = readLegacy(json);
+                    List<byte[]> args = new ArrayList<>();
+                    args.add(ttlArg());
+                    args.add(json);
+                    int position = 0;
+                    for (CartItem item : legacy.getItems()) {
+                        String productId = item.getProductId().toString();
+                        args.add(bytes(ITEM_PREFIX + productId));
+                        args.add(encodeLine(new ProductSummary(item.getProductId(), item.getName(), item.getPrice(),
+                                item.getCurrency(), item.getImageUrl())));
+                        args.add(bytes(QTY_PREFIX + productId));
+                        args.add(bytes(Integer.toString(item.getQuantity())));
+                        args.add(bytes(POS_PREFIX + productId));
+                        args.add(bytes(Integer.toString(++position)));
+                    }
+                    args.add(bytes("seq"));
+                    args.add(bytes(Integer.toString(position)));
+                    args.add(bytes(CURRENCY_FIELD));
+                    args.add(bytes(legacy.getCurrency() == null ? DEFAULT_CURRENCY : legacy.getCurrency()));
+                    Instant updatedAt = legacy.getUpdatedAt() == null ? Instant.now() : legacy.getUpdatedAt();
+                    args.add(bytes(UPDATED_AT_FIELD));
+                    args.add(bytes(Long.toString(updatedAt.toEpochMilli())));
+                    return redisTemplate.execute(MIGRATE_SCRIPT, List.of(key), List.copyOf(args)).then();
+                });
+    }
+
+    private Cart decode(String userId, List<byte[]> fields) {
+        Map<String, CartItem> items = new HashMap<>();
+        Map<String, Long> positions = new HashMap<>();
+        String currency = DEFAULT_CURRENCY;
+        Instant updatedAt = null;
+        for (int i = 0; i + 1 < fields.size(); i += 2) {
+            String field = string(fields.get(i));
+            byte[] value = fields.get(i + 1);
+            if (field.startsWith(ITEM_PREFIX)) {
+                String productId = field.substring(ITEM_PREFIX.length());
+                CartItem item = items.computeIfAbsent(productId, ignored -> new CartItem());
+                CartLine line = lineSerializer.deserialize(value);
+                item.setProductId(UUID.fromString(productId));
+                item.setName(line.name());
+                item.setPrice(line.price());
+                item.setCurrency(line.currency());
+                item.setImageUrl(line.imageUrl());
+            } else if (field.startsWith(QTY_PREFIX)) {
+                items.computeIfAbsent(field.substring(QTY_PREFIX.length()), ignored -> new CartItem())
+                        .setQuantity(Integer.parseInt(string(value)));
+            } else if (field.startsWith(POS_PREFIX)) {
+                positions.put(field.substring(POS_PREFIX.length()), Long.parseLong(string(value)));
+            } else if (CURRENCY_FIELD.equals(field)) {
+                currency = string(value);
+            } else if (UPDATED_AT_FIELD.equals(field)) {
+                updatedAt = Instant.ofEpochMilli(Long.parseLong(string(value)));
+            }
+        }
+        List<CartItem> lines = items.entrySet().stream()
+                .filter(entry -> entry.getValue().getProductId() != null)
+                .sorted(Comparator.comparing(entry -> positions.getOrDefault(entry.getKey(), Long.MAX_VALUE)))
+                .map(Map.Entry::getValue)
+                .collect(ArrayList::new, ArrayList::add, ArrayList::addAll);
+        BigDecimal total = lines.stream()
+                .map(item -> item.getPrice().multiply(BigDecimal.valueOf(item.getQuantity())))
+                .reduce(BigDecimal.ZERO, BigDecimal::add);
+        return new Cart(userId, lines, total, currency, updatedAt == null ? Instant.now() : updatedAt);
+    }
+
+    private byte[] encodeLine(ProductSummary product) {
+        return lineSerializer.serialize(
+                new CartLine(product.name(), product.price(), product.currency(), product.imageUrl()));
+    }
+
+    private Cart readLegacy(byte[] json) {
+        try {
+            return objectMapper.readValue(json, Cart.class);
+        } catch (IOException e) {
+            throw new IllegalStateException("Failed to decode legacy cart", e);
+        }
+    }
+
+    private byte[] ttlArg() {
+        return bytes(Long.toString(properties.getTtlMs()));
+    }
+
+    private static byte[] now() {
+        return bytes(Long.toString(Instant.now().toEpochMilli()));
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static String string(byte[] value) {
+        return new String(value, StandardCharsets.UTF_8);
+    }
+
+    private static String cartKey(String userId) {
+        return CART_KEY_PREFIX + userId;
+    }
+
+    public record CartUpdate(Cart cart, boolean changed) {
+    }
+
+    public record CartKeyStats(String userId, String type, long ttlMs, long bytes) {
+    }
+
+    private record ScriptResult(String status, List<byte[]> fields) {
+    }
+}
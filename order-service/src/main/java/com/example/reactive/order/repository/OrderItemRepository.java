@@ -2,9 +2,13 @@ package com.example.reactive.order.repository;
 
 import com.example.reactive.order.model.OrderItem;
 import java.util.UUID;
+import org.springframework.data.r2dbc.repository.Query;
 import org.springframework.data.repository.reactive.ReactiveCrudRepository;
 import reactor.core.publisher.Flux;
 
 public interface OrderItemRepository extends ReactiveCrudRepository<OrderItem, UUID> {
     Flux<OrderItem> findByOrderId(UUID orderId);
+
+    @Query("SELECT * FROM order_items WHERE order_id = ANY(:orderIds)")
+    Flux<OrderItem> findByOrderIds(UUID[] orderIds);
 }
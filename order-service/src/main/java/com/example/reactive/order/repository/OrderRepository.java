@@ -1,10 +1,27 @@
 package com.example.reactive.order.repository;
 
 import com.example.reactive.order.model.Order;
+import java.time.Instant;
 import java.util.UUID;
+import org.springframework.data.r2dbc.repository.Query;
 import org.springframework.data.repository.reactive.ReactiveCrudRepository;
 import reactor.core.publisher.Flux;
 
 public interface OrderRepository extends ReactiveCrudRepository<Order, UUID> {
-    Flux<Order> findByUserId(String userId);
+    @Query("""
+            SELECT * FROM orders
+            WHERE user_id = :userId
+            ORDER BY created_at DESC, id DESC
+            LIMIT :limit
+            """)
+    Flux<Order> findLatestByUserId(String userId, int limit);
+
+    @Query("""
+            SELECT * FROM orders
+            WHERE user_id = :userId
+              AND (created_at, id) < (:createdAt, :id)
+            ORDER BY created_at DESC, id DESC
+            LIMIT :limit
+            """)
+    Flux<Order> findByUserIdBefore(String userId, Instant createdAt, UUID id, int limit);
 }
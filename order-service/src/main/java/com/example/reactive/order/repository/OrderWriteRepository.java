@@ -0,0 +1,88 @@
+package com.example.reactive.order.repository;
+
+import com.example.reactive.order.model.Order;
+import com.example.reactive.order.model.OrderItem;
+import java.util.List;
+import java.util.StringJoiner;
+import lombok.RequiredArgsConstructor;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Mono;
+
+@Repository
+@RequiredArgsConstructor
+public class OrderWriteRepository {
+    private final DatabaseClient databaseClient;
+
+    public Mono<Void> insertWithItems(Order order, List<OrderItem> items) {
+        if (items.isEmpty()) {
+            return Mono.error(new IllegalArgumentException("Order must contain at least one item"));
+        }
+        StringJoiner values = new StringJoiner(",\n    ");
+        for (int i = 0; i < items.size(); i++) {
+            values.add(String.format("(:itemId%1$d, :productId%1$d, :name%1$d, :price%1$d, :quantity%1$d)", i));
+        }
+        DatabaseClient.GenericExecuteSpec spec = databaseClient.sql("""
+                        WITH inserted_order AS (
+                            INSERT INTO orders (
+                                id,
+                                user_id,
+                                status,
+                                total,
+                                currency,
+                                payment_method,
+                                shipping_name,
+                                shipping_phone,
+                                shipping_address,
+                                shipping_city,
+                                shipping_postal_code,
+                                created_at,
+                                updated_at
+                            ) VALUES (
+                                :id,
+                                :userId,
+                                :status,
+                                :total,
+                                :currency,
+                                :paymentMethod,
+                                :shippingName,
+                                :shippingPhone,
+                                :shippingAddress,
+                                :shippingCity,
+                                :shippingPostalCode,
+                                :createdAt,
+                                :updatedAt
+                            )
+                            RETURNING id
+                        )
+                        INSERT INTO order_items (id, order_id, product_id, name, price, quantity)
+                        SELECT item.id, inserted_order.id, item.product_id, item.name, item.price, item.quantity
+                        FROM inserted_order
+                        CROSS JOIN (VALUES
+                            %s
+                        ) AS item (id, product_id, name, price, quantity)
+                        """.formatted(values))
+                .bind("id", order.getId())
+                .bind("userId", order.getUserId())
+                .bind("status", order.getStatus().name())
+                .bind("total", order.getTotal())
+                .bind("currency", order.getCurrency())
+                .bind("paymentMethod", order.getPaymentMethod())
+                .bind("shippingName", order.getShippingName())
+                .bind("shippingPhone", order.getShippingPhone())
+                .bind("shippingAddress", order.getShippingAddress())
+                .bind("shippingCity", order.getShippingCity())
+                .bind("shippingPostalCode", order.getShippingPostalCode())
+                .bind("createdAt", order.getCreatedAt())
+                .bind("updatedAt", order.getUpdatedAt());
+        for (int i = 0; i < items.size(); i++) {
+            OrderItem item = items.get(i);
+            spec = spec.bind("itemId" + i, item.getId())
+                    .bind("productId" + i, item.getProductId())
+                    .bind("name" + i, item.getName())
+                    .bind("price" + i, item.getPrice())
+                    .bind("quantity" + i, item.getQuantity());
+        }
+        return spec.fetch().rowsUpdated().then();
+    }
+}
@@ -1,37 +1,184 @@
 package com.example.reactive.order.service;
 
+import com.example.reactive.order.config.CartProperties;
 import com.example.reactive.order.model.CartResponse;
+import com.example.reactive.sse.SseFanOut;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.connection.SubscriptionListener;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.ReactiveRedisMessageListenerContainer;
 import org.springframework.http.codec.ServerSentEvent;
 import org.springframework.stereotype.Service;
+import reactor.core.Disposable;
+import reactor.core.Disposables;
 import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 import reactor.core.publisher.Sinks;
+import reactor.util.retry.Retry;
 
 @Service
+@Slf4j
 public class CartStreamService {
-    private final Map<String, Sinks.Many<CartResponse>> sinks = new ConcurrentHashMap<>();
+    private static final String CHANNEL_PREFIX = "cart-events:";
 
-    public Flux<ServerSentEvent<CartResponse>> stream(String userId) {
-        Sinks.Many<CartResponse> sink = sinks.computeIfAbsent(
-                userId,
-                ignored -> Sinks.many().multicast().onBackpressureBuffer()
-        );
-        return sink.asFlux()
-                .map(cart -> ServerSentEvent.builder(cart)
-                        .event("CART_UPDATED")
-                        .id(cart.updatedAt().toString())
-                        .build());
+    private final Map<String, UserStream> streams = new ConcurrentHashMap<>();
+    private final AtomicInteger subscribers = new AtomicInteger();
+    private final ReactiveStringRedisTemplate redisTemplate;
+    private final SseFanOut sseFanOut;
+    private final ReactiveRedisMessageListenerContainer listenerContainer;
+    private final ObjectMapper objectMapper;
+    private final boolean redisBackplane;
+    private final Duration coalesceInterval;
+
+    public CartStreamService(ReactiveStringRedisTemplate redisTemplate,
+                             ReactiveRedisMessageListenerContainer listenerContainer,
+                             ObjectMapper objectMapper,
+                             SseFanOut sseFanOut,
+                             CartProperties properties,
+                             MeterRegistry meterRegistry) {
+        this.redisTemplate = redisTemplate;
+        this.sseFanOut = sseFanOut;
+        this.listenerContainer = listenerContainer;
+        this.objectMapper = objectMapper;
+        this.redisBackplane = properties.getStream().getBackplane() == CartProperties.Backplane.REDIS;
+        this.coalesceInterval = Duration.ofMillis(properties.getStream().getCoalesceMs());
+        Gauge.builder("cart.stream.sinks", streams, Map::size)
+                .description("Users with at least one open cart stream")
+                .register(meterRegistry);
+        Gauge.builder("cart.stream.subscribers", subscribers, AtomicInteger::get)
+                .description("Open cart stream subscriptions")
+                .register(meterRegistry);
+    }
+
+    public Flux<ServerSentEvent<CartResponse>> stream(String userId, Mono<CartResponse> snapshot) {
+        return Flux.defer(() -> {
+            UserStream stream = streams.compute(userId, (key, existing) -> {
+                UserStream current = existing == null ? new UserStream() : existing;
+                current.subscribers.incrementAndGet();
+                return current;
+            });
+            subscribers.incrementAndGet();
+            if (stream.started.compareAndSet(false, true)) {
+                start(userId, stream);
+            }
+            Flux<ServerSentEvent<CartResponse>> updates = stream.outbound.asFlux()
+                    .map(cart -> toEvent("CART_UPDATED", cart));
+            Mono<ServerSentEvent<CartResponse>> initial = stream.ready.asMono()
+                    .then(snapshot)
+                    .map(cart -> toEvent("CART_SNAPSHOT", cart));
+            return sseFanOut.connect("cart", Flux.mergeSequential(initial, updates))
+                    .doFinally(signal -> release(userId, stream));
+        });
     }
 
     public void emit(CartResponse cart) {
         if (cart == null || cart.userId() == null) {
             return;
         }
-        Sinks.Many<CartResponse> sink = sinks.computeIfAbsent(
-                cart.userId(),
-                ignored -> Sinks.many().multicast().onBackpressureBuffer()
-        );
-        sink.tryEmitNext(cart);
+        if (!redisBackplane) {
+            deliver(cart);
+            return;
+        }
+        Mono.fromCallable(() -> objectMapper.writeValueAsString(cart))
+                .flatMap(json -> redisTemplate.convertAndSend(CHANNEL_PREFIX + cart.userId(), json))
+                .subscribe(
+                        ignored -> {
+                        },
+                        error -> {
+                            log.warn("Cart event publish failed, delivering locally: userId={}", cart.userId(), error);
+                            deliver(cart);
+                        });
+    }
+
+    private void start(String userId, UserStream stream) {
+        Flux<CartResponse> inbound = stream.inbound.asFlux();
+        if (!coalesceInterval.isZero()) {
+            inbound = inbound.sample(coalesceInterval);
+        }
+        stream.resources.add(inbound.subscribe(stream.outbound::tryEmitNext));
+        if (!redisBackplane) {
+            stream.ready.tryEmitEmpty();
+            return;
+        }
+        SubscriptionListener onSubscribed = new SubscriptionListener() {
+            @Override
+            public void onChannelSubscribed(byte[] channel, long count) {
+                stream.ready.tryEmitEmpty();
+            }
+        };
+        stream.resources.add(listenerContainer
+                .receive(List.of(ChannelTopic.of(CHANNEL_PREFIX + userId)), onSubscribed)
+                .concatMap(message -> Mono.fromCallable(() -> readCart(message.getMessage()))
+                        .onErrorResume(error -> {
+                            log.warn("Dropping malformed cart event: userId={}", userId, error);
+                            return Mono.empty();
+                        }))
+                .doOnError(error -> {
+                    log.warn("Cart event subscription failed, resubscribing: userId={}", userId, error);
+                    stream.ready.tryEmitEmpty();
+                })
+                .retryWhen(Retry.backoff(Long.MAX_VALUE, Duration.ofSeconds(1))
+                        .maxBackoff(Duration.ofSeconds(30))
+                        .transientErrors(true))
+                .subscribe(cart -> offer(stream, cart)));
+    }
+
+    private void deliver(CartResponse cart) {
+        UserStream stream = streams.get(cart.userId());
+        if (stream != null) {
+            offer(stream, cart);
+        }
+    }
+
+    private void offer(UserStream stream, CartResponse cart) {
+        synchronized (stream) {
+            stream.inbound.tryEmitNext(cart);
+        }
+    }
+
+    private CartResponse readCart(String json) throws IOException {
+        return objectMapper.readValue(json, CartResponse.class);
+    }
+
+    private ServerSentEvent<CartResponse> toEvent(String type, CartResponse cart) {
+        return ServerSentEvent.builder(cart)
+                .event(type)
+                .id(cart.updatedAt().toString())
+                .build();
+    }
+
+    private void release(String userId, UserStream stream) {
+        subscribers.decrementAndGet();
+        AtomicBoolean removed = new AtomicBoolean();
+        streams.computeIfPresent(userId, (key, current) -> {
+            if (current != stream || current.subscribers.decrementAndGet() > 0) {
+                return current;
+            }
+            removed.set(true);
+            return null;
+        });
+        if (removed.get()) {
+            stream.resources.dispose();
+        }
+    }
+
+    private static final class UserStream {
+        private final Sinks.Many<CartResponse> inbound = Sinks.many().multicast().directBestEffort();
+        private final Sinks.Many<CartResponse> outbound = Sinks.many().multicast().directBestEffort();
+        private final Sinks.Empty<Void> ready = Sinks.empty();
+        private final Disposable.Composite resources = Disposables.composite();
+        private final AtomicInteger subscribers = new AtomicInteger();
+        private final AtomicBoolean started = new AtomicBoolean();
     }
 }
@@ -0,0 +1,119 @@
+package com.example.reactive.order.service;
+
+import com.example.reactive.order.config.CartProperties;
+import com.example.reactive.order.model.Cart;
+import com.example.reactive.order.repository.AbandonedCartRepository;
+import com.example.reactive.order.repository.CartRepository;
+import com.example.reactive.order.repository.CartRepository.CartKeyStats;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+@Component
+@Slf4j
+public class CartSweeper {
+    private final CartRepository cartRepository;
+    private final AbandonedCartRepository abandonedCartRepository;
+    private final CartProperties properties;
+    private final ObjectMapper objectMapper;
+    private final AtomicLong cartKeys = new AtomicLong();
+    private final AtomicLong cartBytes = new AtomicLong();
+    private final Counter archivedCarts;
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    public CartSweeper(CartRepository cartRepository,
+                       AbandonedCartRepository abandonedCartRepository,
+                       CartProperties properties,
+                       ObjectMapper objectMapper,
+                       MeterRegistry meterRegistry) {
+        this.cartRepository = cartRepository;
+        this.abandonedCartRepository = abandonedCartRepository;
+        this.properties = properties;
+        this.objectMapper = objectMapper;
+        Gauge.builder("cart.redis.keys", cartKeys, AtomicLong::get)
+                .description("Cart keys in Redis at the last sweep")
+                .register(meterRegistry);
+        Gauge.builder("cart.redis.bytes", cartBytes, AtomicLong::get)
+                .description("Redis memory used by cart keys at the last sweep")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        this.archivedCarts = Counter.builder("cart.archived")
+                .description("Idle carts moved from Redis to abandoned_carts")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(initialDelayString = "${app.cart.sweep-interval-ms:3600000}",
+            fixedDelayString = "${app.cart.sweep-interval-ms:3600000}")
+    public void scheduledSweep() {
+        sweep().subscribe();
+    }
+
+    public Mono<Void> sweep() {
+        if (!running.compareAndSet(false, true)) {
+            return Mono.empty();
+        }
+        AtomicLong keys = new AtomicLong();
+        AtomicLong bytes = new AtomicLong();
+        AtomicLong archived = new AtomicLong();
+        long idleRemainingTtlMs = properties.getTtlMs() - properties.getArchiveAfterMs();
+        boolean archiving = properties.getTtlMs() > 0 && idleRemainingTtlMs > 0;
+        return cartRepository.scanKeys(properties.getSweepBatchSize())
+                .buffer(properties.getSweepBatchSize())
+                .concatMap(cartRepository::inspect)
+                .doOnNext(stats -> {
+                    keys.incrementAndGet();
+                    bytes.addAndGet(stats.bytes());
+                })
+                .filter(stats -> archiving && isIdle(stats, idleRemainingTtlMs))
+                .concatMap(stats -> archive(stats.userId(), idleRemainingTtlMs)
+                        .doOnNext(moved -> {
+                            if (moved) {
+                                archived.incrementAndGet();
+                                archivedCarts.increment();
+                            }
+                        })
+                        .onErrorResume(error -> {
+                            log.warn("Cart archive failed: userId={}", stats.userId(), error);
+                            return Mono.empty();
+                        }))
+                .then(Mono.fromRunnable(() -> {
+                    cartKeys.set(keys.get() - archived.get());
+                    cartBytes.set(bytes.get());
+                    log.info("Cart sweep finished: keys={}, bytes={}, archived={}",
+                            keys.get(), bytes.get(), archived.get());
+                }))
+                .doOnError(error -> log.warn("Cart sweep failed", error))
+                .onErrorResume(error -> Mono.empty())
+                .doFinally(signal -> running.set(false))
+                .then();
+    }
+
+    private boolean isIdle(CartKeyStats stats, long idleRemainingTtlMs) {
+        return "hash".equals(stats.type()) && stats.ttlMs() >= 0 && stats.ttlMs() <= idleRemainingTtlMs;
+    }
+
+    private Mono<Boolean> archive(String userId, long idleRemainingTtlMs) {
+        return cartRepository.peek(userId)
+                .flatMap(cart -> Mono.fromCallable(() -> objectMapper.writeValueAsString(cart.getItems()))
+                        .subscribeOn(Schedulers.boundedElastic())
+                        .flatMap(items -> store(cart, items))
+                        .then(cartRepository.deleteIfIdle(userId, idleRemainingTtlMs)))
+                .defaultIfEmpty(false);
+    }
+
+    private Mono<Void> store(Cart cart, String items) {
+        if (cart.getItems().isEmpty()) {
+            return Mono.empty();
+        }
+        return abandonedCartRepository.upsert(cart, items, Instant.now());
+    }
+}
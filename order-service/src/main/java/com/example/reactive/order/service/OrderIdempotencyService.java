@@ -0,0 +1,126 @@
+package com.example.reactive.order.service;
+
+import com.example.reactive.order.config.OrderIdempotencyProperties;
+import com.example.reactive.order.model.CreateOrderRequest;
+import com.example.reactive.order.model.OrderResponse;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.publisher.Mono;
+import reactor.util.retry.Retry;
+
+@Service
+@Slf4j
+public class OrderIdempotencyService {
+    private static final String KEY_PREFIX = "idempotency:orders:";
+
+    private final Map<String, Mono<OrderResponse>> inFlight = new ConcurrentHashMap<>();
+    private final ReactiveStringRedisTemplate redisTemplate;
+    private final ObjectMapper objectMapper;
+    private final OrderIdempotencyProperties properties;
+
+    public OrderIdempotencyService(ReactiveStringRedisTemplate redisTemplate,
+                                   ObjectMapper objectMapper,
+                                   OrderIdempotencyProperties properties) {
+        this.redisTemplate = redisTemplate;
+        this.objectMapper = objectMapper;
+        this.properties = properties;
+    }
+
+    public Mono<OrderResponse> execute(String idempotencyKey, CreateOrderRequest request,
+                                       Supplier<Mono<OrderResponse>> action) {
+        if (idempotencyKey == null) {
+            return action.get();
+        }
+        if (idempotencyKey.isBlank() || idempotencyKey.length() > properties.getMaxKeyLength()) {
+            return Mono.error(new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid Idempotency-Key"));
+        }
+        String key = KEY_PREFIX + request.userId() + ":" + idempotencyKey;
+        String fingerprint;
+        try {
+            fingerprint = fingerprint(request);
+        } catch (JsonProcessingException e) {
+            return Mono.error(e);
+        }
+        AtomicReference<Mono<OrderResponse>> self = new AtomicReference<>();
+        Mono<OrderResponse> candidate = Mono.defer(() -> claimOrReplay(key, fingerprint, action, System.nanoTime()))
+                .doFinally(signal -> inFlight.remove(key, self.get()))
+                .cache();
+        self.set(candidate);
+        Mono<OrderResponse> existing = inFlight.putIfAbsent(key, candidate);
+        return existing != null ? existing : candidate;
+    }
+
+    private Mono<OrderResponse> claimOrReplay(String key, String fingerprint, Supplier<Mono<OrderResponse>> action,
+                                              long startedAt) {
+        return Mono.fromCallable(() -> objectMapper.writeValueAsString(new StoredOrder(fingerprint, null)))
+                .flatMap(pending -> redisTemplate.opsForValue()
+                        .setIfAbsent(key, pending, Duration.ofMillis(properties.getPendingTtlMs())))
+                .flatMap(claimed -> claimed
+                        ? runAndStore(key, fingerprint, action)
+                        : awaitStored(key, fingerprint, action, startedAt));
+    }
+
+    private Mono<OrderResponse> runAndStore(String key, String fingerprint, Supplier<Mono<OrderResponse>> action) {
+        return action.get()
+                .onErrorResume(error -> redisTemplate.delete(key)
+                        .onErrorResume(deleteError -> Mono.empty())
+                        .then(Mono.error(error)))
+                .flatMap(response -> Mono.fromCallable(() -> objectMapper.writeValueAsString(
+                                new StoredOrder(fingerprint, response)))
+                        .flatMap(json -> redisTemplate.opsForValue()
+                                .set(key, json, Duration.ofMillis(properties.getTtlMs())))
+                        .retryWhen(Retry.backoff(properties.getStoreRetries(),
+                                Duration.ofMillis(properties.getPollIntervalMs())))
+                        .doOnError(error -> log.error("Failed to store idempotent order response: key={}", key, error))
+                        .onErrorResume(error -> Mono.empty())
+                        .thenReturn(response));
+    }
+
+    private Mono<OrderResponse> awaitStored(String key, String fingerprint, Supplier<Mono<OrderResponse>> action,
+                                            long startedAt) {
+        return redisTemplate.opsForValue()
+                .get(key)
+                .flatMap(json -> Mono.fromCallable(() -> objectMapper.readValue(json, StoredOrder.class)))
+                .flatMap(stored -> {
+                    if (!fingerprint.equals(stored.fingerprint())) {
+                        return Mono.error(new ResponseStatusException(HttpStatus.UNPROCESSABLE_ENTITY,
+                                "Idempotency-Key was already used with a different request"));
+                    }
+                    if (stored.response() != null) {
+                        return Mono.just(stored.response());
+                    }
+                    if (System.nanoTime() - startedAt > Duration.ofMillis(properties.getPendingTtlMs()).toNanos()) {
+                        return Mono.error(new ResponseStatusException(HttpStatus.CONFLICT,
+                                "A request with this Idempotency-Key is still in progress"));
+                    }
+                    return Mono.delay(Duration.ofMillis(properties.getPollIntervalMs()))
+                            .then(Mono.defer(() -> awaitStored(key, fingerprint, action, startedAt)));
+                })
+                .switchIfEmpty(Mono.defer(() -> claimOrReplay(key, fingerprint, action, startedAt)));
+    }
+
+    private String fingerprint(CreateOrderRequest request) throws JsonProcessingException {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(objectMapper.writeValueAsBytes(request)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    record StoredOrder(String fingerprint, OrderResponse response) {
+    }
+}
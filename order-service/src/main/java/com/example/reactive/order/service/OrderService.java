@@ -1,41 +1,59 @@
 package com.example.reactive.order.service;
 
-import com.example.reactive.order.client.AdminClient;
-import com.example.reactive.order.client.NotificationClient;
-import com.example.reactive.order.model.AdminEvent;
+import com.example.reactive.order.config.OrderHistoryProperties;
 import com.example.reactive.order.model.CartResponse;
 import com.example.reactive.order.model.CreateOrderRequest;
-import com.example.reactive.order.model.NotificationEvent;
 import com.example.reactive.order.model.Order;
+import com.example.reactive.order.model.OrderCursor;
 import com.example.reactive.order.model.OrderItem;
 import com.example.reactive.order.model.OrderItemResponse;
+import com.example.reactive.order.model.OrderPage;
 import com.example.reactive.order.model.OrderResponse;
 import com.example.reactive.order.model.OrderStatus;
 import com.example.reactive.order.model.ShippingAddress;
 import com.example.reactive.order.model.UpdateOrderStatusRequest;
+import com.example.reactive.order.outbox.OrderOutboxService;
 import com.example.reactive.order.repository.OrderItemRepository;
 import com.example.reactive.order.repository.OrderRepository;
+import com.example.reactive.order.repository.OrderWriteRepository;
 import java.time.Instant;
 import java.util.List;
-import java.util.Map;
 import java.util.UUID;
-import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.ReactiveTransactionManager;
+import org.springframework.transaction.reactive.TransactionalOperator;
 import org.springframework.web.server.ResponseStatusException;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 @Service
-@RequiredArgsConstructor
 @Slf4j
 public class OrderService {
     private final OrderRepository orderRepository;
     private final OrderItemRepository orderItemRepository;
+    private final OrderWriteRepository orderWriteRepository;
     private final CartService cartService;
-    private final NotificationClient notificationClient;
-    private final AdminClient adminClient;
+    private final OrderOutboxService outboxService;
+    private final OrderHistoryProperties historyProperties;
+    private final TransactionalOperator transactionalOperator;
+
+    public OrderService(OrderRepository orderRepository,
+                        OrderItemRepository orderItemRepository,
+                        OrderWriteRepository orderWriteRepository,
+                        CartService cartService,
+                        OrderOutboxService outboxService,
+                        OrderHistoryProperties historyProperties,
+                        ReactiveTransactionManager transactionManager) {
+        this.orderRepository = orderRepository;
+        this.orderItemRepository = orderItemRepository;
+        this.orderWriteRepository = orderWriteRepository;
+        this.cartService = cartService;
+        this.outboxService = outboxService;
+        this.historyProperties = historyProperties;
+        this.transactionalOperator = TransactionalOperator.create(transactionManager);
+    }
 
     public Mono<OrderResponse> createOrder(CreateOrderRequest request) {
         return cartService.getCart(request.userId())
@@ -59,24 +77,27 @@ public class OrderService {
                             now,
                             now
                     );
-                    return orderRepository.save(order)
-                            .flatMap(saved -> {
-                                List<OrderItem> items = cart.items().stream()
-                                        .map(item -> new OrderItem(
-                                                UUID.randomUUID(),
-                                                saved.getId(),
-                                                item.getProductId(),
-                                                item.getName(),
-                                                item.getPrice(),
-                                                item.getQuantity()
-                                        ))
-                                        .toList();
-                                return orderItemRepository.saveAll(items).then(Mono.just(saved));
-                            })
-                            .flatMap(saved -> cartService.clearCart(request.userId()).thenReturn(saved));
+                    List<OrderItem> items = cart.items().stream()
+                            .map(item -> new OrderItem(
+                                    UUID.randomUUID(),
+                                    order.getId(),
+                                    item.getProductId(),
+                                    item.getName(),
+                                    item.getPrice(),
+                                    item.getQuantity()
+                            ))
+                            .toList();
+                    Mono<Void> persisted = orderWriteRepository.insertWithItems(order, items)
+                            .then(outboxService.enqueueOrderCreated(order));
+                    return transactionalOperator.transactional(persisted)
+                            .then(cartService.clearCart(request.userId())
+                                    .onErrorResume(error -> {
+                                        log.warn("Failed to clear cart after order: orderId={}, userId={}",
+                                                order.getId(), request.userId(), error);
+                                        return Mono.empty();
+                                    }))
+                            .thenReturn(toResponse(order, items.stream().map(this::toItemResponse).toList()));
                 })
-                .doOnNext(this::publishCreatedEvents)
-                .flatMap(this::toResponse)
                 .doOnNext(response -> log.info("Order created: id={}, userId={}, total={}, status={}",
                         response.id(), response.userId(), response.total(), response.status()));
     }
@@ -87,61 +108,78 @@ public class OrderService {
                 .flatMap(this::toResponse);
     }
 
-    public Flux<OrderResponse> getOrdersByUser(String userId) {
-        return orderRepository.findByUserId(userId)
-                .flatMap(this::toResponse);
+    public Mono<OrderPage> getOrdersByUser(String userId, String cursor, Integer size) {
+        if (size != null && size < 1) {
+            return Mono.error(new ResponseStatusException(HttpStatus.BAD_REQUEST, "Page size must be positive"));
+        }
+        int pageSize = size == null
+                ? historyProperties.getDefaultPageSize()
+                : Math.min(size, historyProperties.getMaxPageSize());
+        Flux<Order> orders = cursor == null || cursor.isBlank()
+                ? orderRepository.findLatestByUserId(userId, pageSize + 1)
+                : decodeCursor(cursor).flatMapMany(after -> orderRepository.findByUserIdBefore(
+                        userId, after.createdAt(), after.id(), pageSize + 1));
+        return orders.collectList()
+                .flatMap(fetched -> {
+                    boolean hasMore = fetched.size() > pageSize;
+                    List<Order> page = hasMore ? fetched.subList(0, pageSize) : fetched;
+                    return toResponses(page)
+                            .collectList()
+                            .map(items -> new OrderPage(items, hasMore
+                                    ? OrderCursor.of(items.get(items.size() - 1)).encode()
+                                    : null));
+                });
     }
 
     public Mono<OrderResponse> updateStatus(UUID orderId, UpdateOrderStatusRequest request) {
-        return orderRepository.findById(orderId)
+        Mono<Order> updated = orderRepository.findById(orderId)
                 .switchIfEmpty(Mono.error(new ResponseStatusException(HttpStatus.NOT_FOUND, "Order not found")))
                 .flatMap(order -> {
                     order.setStatus(request.status());
                     order.setUpdatedAt(Instant.now());
                     return orderRepository.save(order);
                 })
-                .flatMap(saved -> sendStatusEvents(saved, request.reason()).thenReturn(saved))
+                .flatMap(saved -> outboxService.enqueueStatusChanged(saved, request.reason()).thenReturn(saved));
+        return transactionalOperator.transactional(updated)
                 .flatMap(this::toResponse)
                 .doOnNext(response -> log.info("Order status updated: id={}, status={}, reason={}",
                         response.id(), response.status(), request.reason()));
     }
 
-    private Mono<Void> sendCreatedEvents(Order order) {
-        NotificationEvent event = new NotificationEvent(
-                order.getUserId(),
-                "ORDER_CREATED",
-                "Order created",
-                Map.of("orderId", order.getId(), "status", order.getStatus()),
-                Instant.now()
-        );
-        AdminEvent adminEvent = new AdminEvent("ORDER_CREATED", order.getId(), Instant.now());
-        return notificationClient.publish(event).then(adminClient.publish(adminEvent));
+    private Mono<OrderResponse> toResponse(Order order) {
+        return orderItemRepository.findByOrderId(order.getId())
+                .map(this::toItemResponse)
+                .collectList()
+                .map(items -> toResponse(order, items));
     }
 
-    private void publishCreatedEvents(Order order) {
-        sendCreatedEvents(order)
-                .doOnError(error -> log.warn("Failed to publish order created events: orderId={}", order.getId(), error))
-                .subscribe();
+    private Mono<OrderCursor> decodeCursor(String cursor) {
+        return Mono.fromCallable(() -> OrderCursor.decode(cursor))
+                .onErrorMap(IllegalArgumentException.class,
+                        error -> new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid cursor"));
     }
 
-    private Mono<Void> sendStatusEvents(Order order, String reason) {
-        NotificationEvent event = new NotificationEvent(
-                order.getUserId(),
-                "ORDER_STATUS",
-                reason == null ? "Order status updated" : reason,
-                Map.of("orderId", order.getId(), "status", order.getStatus()),
-                Instant.now()
-        );
-        AdminEvent adminEvent = new AdminEvent("ORDER_STATUS", order.getId(), Instant.now());
-        return notificationClient.publish(event).then(adminClient.publish(adminEvent));
+    private Flux<OrderResponse> toResponses(List<Order> orders) {
+        if (orders.isEmpty()) {
+            return Flux.empty();
+        }
+        UUID[] orderIds = orders.stream()
+                .map(Order::getId)
+                .toArray(UUID[]::new);
+        return orderItemRepository.findByOrderIds(orderIds)
+                .collectMultimap(OrderItem::getOrderId, this::toItemResponse)
+                .flatMapIterable(itemsByOrder -> orders.stream()
+                        .map(order -> toResponse(order, List.copyOf(
+                                itemsByOrder.getOrDefault(order.getId(), List.of()))))
+                        .toList());
     }
 
-    private Mono<OrderResponse> toResponse(Order order) {
-        Mono<List<OrderItemResponse>> itemsMono = orderItemRepository.findByOrderId(order.getId())
-                .map(item -> new OrderItemResponse(item.getId(), item.getProductId(), item.getName(),
-                        item.getPrice(), item.getQuantity()))
-                .collectList();
+    private OrderItemResponse toItemResponse(OrderItem item) {
+        return new OrderItemResponse(item.getId(), item.getProductId(), item.getName(),
+                item.getPrice(), item.getQuantity());
+    }
 
+    private OrderResponse toResponse(Order order, List<OrderItemResponse> items) {
         ShippingAddress shipping = new ShippingAddress(
                 order.getShippingName(),
                 order.getShippingPhone(),
@@ -150,7 +188,7 @@ public class OrderService {
                 order.getShippingPostalCode()
         );
 
-        return itemsMono.map(items -> new OrderResponse(
+        return new OrderResponse(
                 order.getId(),
                 order.getUserId(),
                 order.getStatus(),
@@ -161,6 +199,6 @@ public class OrderService {
                 items,
                 order.getCreatedAt(),
                 order.getUpdatedAt()
-        ));
+        );
     }
 }
@@ -0,0 +1,86 @@
+package com.example.reactive.order.service;
+
+import com.example.reactive.order.client.ProductClient;
+import com.example.reactive.order.model.ProductEvent;
+import jakarta.annotation.PreDestroy;
+import java.time.Duration;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.util.retry.Retry;
+
+@Component
+@Slf4j
+public class ProductEventSubscriber {
+    private final ProductClient productClient;
+    private final ProductSummaryCache productCache;
+    private final boolean enabled;
+    private final Duration minBackoff;
+    private final Duration maxBackoff;
+    private volatile Disposable subscription;
+
+    public ProductEventSubscriber(ProductClient productClient,
+                                  ProductSummaryCache productCache,
+                                  @Value("${app.products.events.enabled:true}") boolean enabled,
+                                  @Value("${app.products.events.min-backoff-ms:1000}") long minBackoffMs,
+                                  @Value("${app.products.events.max-backoff-ms:30000}") long maxBackoffMs) {
+        this.productClient = productClient;
+        this.productCache = productCache;
+        this.enabled = enabled;
+        this.minBackoff = Duration.ofMillis(minBackoffMs);
+        this.maxBackoff = Duration.ofMillis(Math.max(minBackoffMs, maxBackoffMs));
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        subscription = Flux.defer(this::connect)
+                .retryWhen(Retry.backoff(Long.MAX_VALUE, minBackoff)
+                        .maxBackoff(maxBackoff)
+                        .transientErrors(true)
+                        .doBeforeRetry(signal -> log.warn("Product stream failed, reconnecting: attempt={}, error={}",
+                                signal.totalRetries() + 1, signal.failure().toString())))
+                .repeatWhen(completed -> completed.delayElements(minBackoff))
+                .subscribe();
+    }
+
+    @PreDestroy
+    public void stop() {
+        Disposable current = subscription;
+        if (current != null) {
+            current.dispose();
+        }
+        productCache.pushDisconnected();
+    }
+
+    private Flux<ProductEvent> connect() {
+        return productClient.streamEvents()
+                .index()
+                .doOnNext(indexed -> {
+                    if (indexed.getT1() == 0) {
+                        log.info("Product stream connected");
+                        productCache.pushConnected();
+                    }
+                })
+                .mapNotNull(indexed -> indexed.getT2().data())
+                .doOnNext(this::apply)
+                .doFinally(signal -> productCache.pushDisconnected());
+    }
+
+    private void apply(ProductEvent event) {
+        if (event.product() == null || event.product().id() == null) {
+            return;
+        }
+        if ("PRODUCT_DELETED".equals(event.type())) {
+            productCache.invalidate(event.product().id());
+        } else {
+            productCache.refresh(event.product());
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package com.example.reactive.order.service;
+
+import com.example.reactive.order.client.ProductClient;
+import com.example.reactive.order.model.ProductSummary;
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import java.time.Duration;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+@Component
+public class ProductSummaryCache {
+    private final ProductClient productClient;
+    private final AsyncCache<UUID, ProductSummary> cache;
+    private final long ttlNanos;
+    private final long pushTtlNanos;
+    private volatile boolean pushConnected;
+
+    public ProductSummaryCache(ProductClient productClient,
+                               MeterRegistry meterRegistry,
+                               @Value("${app.products.cache-ttl-ms:30000}") long ttlMs,
+                               @Value("${app.products.cache-push-ttl-ms:3600000}") long pushTtlMs,
+                               @Value("${app.products.cache-max-entries:5000}") long maxEntries) {
+        this.productClient = productClient;
+        this.ttlNanos = TimeUnit.MILLISECONDS.toNanos(ttlMs);
+        this.pushTtlNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(ttlMs, pushTtlMs));
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxEntries)
+                .expireAfter(new Expiry<UUID, ProductSummary>() {
+                    @Override
+                    public long expireAfterCreate(UUID key, ProductSummary value, long currentTime) {
+                        return currentTtlNanos();
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(UUID key, ProductSummary value, long currentTime,
+                                                  long currentDuration) {
+                        return currentTtlNanos();
+                    }
+
+                    @Override
+                    public long expireAfterRead(UUID key, ProductSummary value, long currentTime,
+                                                long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .recordStats()
+                .buildAsync();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "product-summaries");
+    }
+
+    public Mono<ProductSummary> get(UUID productId) {
+        return Mono.fromFuture(() -> cache.get(productId,
+                (key, executor) -> productClient.getProduct(key).toFuture()), true);
+    }
+
+    public void put(ProductSummary product) {
+        if (product == null || product.id() == null) {
+            return;
+        }
+        cache.put(product.id(), CompletableFuture.completedFuture(product));
+    }
+
+    public void refresh(ProductSummary product) {
+        if (product == null || product.id() == null) {
+            return;
+        }
+        cache.asMap().computeIfPresent(product.id(),
+                (id, current) -> CompletableFuture.completedFuture(product));
+    }
+
+    public void invalidate(UUID productId) {
+        cache.synchronous().invalidate(productId);
+    }
+
+    public void pushConnected() {
+        pushConnected = true;
+    }
+
+    public void pushDisconnected() {
+        if (!pushConnected) {
+            return;
+        }
+        pushConnected = false;
+        cache.synchronous().policy().expireVariably().ifPresent(expiry -> {
+            Duration ttl = Duration.ofNanos(ttlNanos);
+            for (UUID key : cache.synchronous().asMap().keySet()) {
+                expiry.getExpiresAfter(key)
+                        .filter(remaining -> remaining.compareTo(ttl) > 0)
+                        .ifPresent(remaining -> expiry.setExpiresAfter(key, ttl));
+            }
+        });
+    }
+
+    private long currentTtlNanos() {
+        return pushConnected ? pushTtlNanos : ttlNanos;
+    }
+}
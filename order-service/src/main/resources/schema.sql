@@ -23,5 +23,34 @@ CREATE TABLE IF NOT EXISTS order_items (
     quantity INTEGER NOT NULL
 );
 
-CREATE INDEX IF NOT EXISTS idx_orders_user_id ON orders(user_id);
+CREATE TABLE IF NOT EXISTS abandoned_carts (
+    user_id VARCHAR(80) PRIMARY KEY,
+    items TEXT NOT NULL,
+    item_count INTEGER NOT NULL,
+    total NUMERIC(12, 2) NOT NULL,
+    currency VARCHAR(3) NOT NULL,
+    updated_at TIMESTAMPTZ NOT NULL,
+    archived_at TIMESTAMPTZ NOT NULL
+);
+
+DROP INDEX IF EXISTS idx_orders_user_id;
+CREATE INDEX IF NOT EXISTS idx_orders_user_created ON orders(user_id, created_at DESC, id DESC);
 CREATE INDEX IF NOT EXISTS idx_order_items_order_id ON order_items(order_id);
+
+CREATE TABLE IF NOT EXISTS order_outbox (
+    id UUID PRIMARY KEY,
+    order_id UUID NOT NULL,
+    target VARCHAR(20) NOT NULL,
+    event_type VARCHAR(40) NOT NULL,
+    payload TEXT NOT NULL,
+    status VARCHAR(20) NOT NULL,
+    attempts INTEGER NOT NULL,
+    next_attempt_at TIMESTAMPTZ,
+    last_attempt_at TIMESTAMPTZ,
+    sent_at TIMESTAMPTZ,
+    created_at TIMESTAMPTZ NOT NULL,
+    lease_expires_at TIMESTAMPTZ
+);
+
+CREATE INDEX IF NOT EXISTS ix_order_outbox_status_next
+    ON order_outbox(status, next_attempt_at);
@@ -1,6 +1,7 @@
 package com.example.reactive.order;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
 
 import com.example.reactive.order.model.AddCartItemRequest;
 import com.example.reactive.order.model.ApiError;
@@ -11,11 +12,23 @@ import com.example.reactive.order.model.OrderStatus;
 import com.example.reactive.order.model.ShippingAddress;
 import com.example.reactive.order.model.UpdateCartItemRequest;
 import com.example.reactive.order.model.UpdateOrderStatusRequest;
+import com.example.reactive.order.outbox.OrderOutboxRepository;
 import com.example.reactive.order.repository.OrderItemRepository;
 import com.example.reactive.order.repository.OrderRepository;
+import com.example.reactive.order.service.CartSweeper;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import java.io.IOException;
 import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 import okhttp3.mockwebserver.Dispatcher;
 import okhttp3.mockwebserver.MockResponse;
@@ -31,14 +44,17 @@ import org.springframework.core.ParameterizedTypeReference;
 import org.springframework.data.redis.connection.ReactiveRedisConnectionFactory;
 import org.springframework.http.MediaType;
 import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.r2dbc.core.DatabaseClient;
 import org.springframework.test.context.DynamicPropertyRegistry;
 import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.reactive.server.EntityExchangeResult;
 import org.springframework.test.web.reactive.server.WebTestClient;
 import org.testcontainers.containers.GenericContainer;
 import org.testcontainers.containers.PostgreSQLContainer;
 import org.testcontainers.junit.jupiter.Container;
 import org.testcontainers.junit.jupiter.Testcontainers;
 import reactor.core.publisher.Flux;
+import reactor.core.scheduler.Schedulers;
 import reactor.test.StepVerifier;
 
 @SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
@@ -47,9 +63,14 @@ import reactor.test.StepVerifier;
 class OrderServiceIntegrationTest {
     private static final UUID PRODUCT_ID = UUID.fromString("c0a8012b-7f75-4c3d-8cb4-1fdb3bd91ea1");
     private static final BigDecimal PRODUCT_PRICE = new BigDecimal("19.99");
+    private static final UUID PUSHED_PRODUCT_ID = UUID.fromString("5d0f4c7e-2b8a-4f3e-9a61-0c2d7e8b9f10");
     private static final MockWebServer MOCK_WEB_SERVER = new MockWebServer();
     private static final AtomicInteger ADMIN_EVENTS = new AtomicInteger();
     private static final AtomicInteger NOTIFICATION_EVENTS = new AtomicInteger();
+    private static final AtomicInteger ADMIN_FAILURES = new AtomicInteger();
+    private static final AtomicInteger PUSHED_PRODUCT_REQUESTS = new AtomicInteger();
+    private static final BlockingQueue<String> PRODUCT_STREAM_EVENTS = new LinkedBlockingQueue<>();
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
 
     @Container
     private static final PostgreSQLContainer<?> POSTGRES = new PostgreSQLContainer<>("postgres:15-alpine")
@@ -67,18 +88,38 @@ class OrderServiceIntegrationTest {
                 @Override
                 public MockResponse dispatch(RecordedRequest request) {
                     String path = request.getPath();
+                    if ("/api/products/stream".equals(path)) {
+                        return new MockResponse()
+                                .setResponseCode(200)
+                                .setHeader("Content-Type", "text/event-stream")
+                                .setBody(":connected\n\n" + nextProductStreamEvent());
+                    }
                     if (path != null && path.startsWith("/api/products/")) {
+                        UUID productId = UUID.fromString(path.substring("/api/products/".length()));
+                        if (PUSHED_PRODUCT_ID.equals(productId)) {
+                            PUSHED_PRODUCT_REQUESTS.incrementAndGet();
+                        }
                         return new MockResponse()
                                 .setResponseCode(200)
                                 .setHeader("Content-Type", "application/json")
-                                .setBody(productJson());
+                                .setBody(productJson(productId, PRODUCT_PRICE));
                     }
-                    if ("/api/notifications/events".equals(path)) {
-                        NOTIFICATION_EVENTS.incrementAndGet();
+                    if ("/api/notifications/events/batch".equals(path)) {
+                        String body = request.getBody().readUtf8();
+                        if (body.contains("\"rejected\"")) {
+                            return new MockResponse().setResponseCode(400);
+                        }
+                        if (body.contains("\"throttled\"")) {
+                            return new MockResponse().setResponseCode(429).setHeader("Retry-After", "120");
+                        }
+                        NOTIFICATION_EVENTS.addAndGet(batchSize(body));
                         return new MockResponse().setResponseCode(200);
                     }
-                    if ("/api/admin/events".equals(path)) {
-                        ADMIN_EVENTS.incrementAndGet();
+                    if ("/api/admin/events/batch".equals(path)) {
+                        if (ADMIN_FAILURES.getAndUpdate(remaining -> Math.max(remaining - 1, 0)) > 0) {
+                            return new MockResponse().setResponseCode(503);
+                        }
+                        ADMIN_EVENTS.addAndGet(batchSize(request.getBody().readUtf8()));
                         return new MockResponse().setResponseCode(200);
                     }
                     return new MockResponse().setResponseCode(404);
@@ -105,6 +146,10 @@ class OrderServiceIntegrationTest {
         registry.add("app.products.base-url", () -> MOCK_WEB_SERVER.url("/").toString());
         registry.add("app.notifications.base-url", () -> MOCK_WEB_SERVER.url("/").toString());
         registry.add("app.admin.base-url", () -> MOCK_WEB_SERVER.url("/").toString());
+        registry.add("app.products.events.min-backoff-ms", () -> 50);
+        registry.add("app.cart.stream.coalesce-ms", () -> 300);
+        registry.add("app.outbox.poll-interval-ms", () -> 100);
+        registry.add("app.outbox.initial-backoff-ms", () -> 50);
     }
 
     @Autowired
@@ -119,6 +164,15 @@ class OrderServiceIntegrationTest {
     @Autowired
     private ReactiveRedisConnectionFactory redisConnectionFactory;
 
+    @Autowired
+    private CartSweeper cartSweeper;
+
+    @Autowired
+    private DatabaseClient databaseClient;
+
+    @Autowired
+    private OrderOutboxRepository outboxRepository;
+
     @AfterAll
     static void tearDown() throws IOException {
         MOCK_WEB_SERVER.shutdown();
@@ -127,6 +181,8 @@ class OrderServiceIntegrationTest {
     @BeforeEach
     void resetState() {
         StepVerifier.create(orderItemRepository.deleteAll().then(orderRepository.deleteAll())).verifyComplete();
+        StepVerifier.create(databaseClient.sql("DELETE FROM abandoned_carts").then()).verifyComplete();
+        StepVerifier.create(outboxRepository.deleteAll()).verifyComplete();
         StepVerifier.create(redisConnectionFactory.getReactiveConnection()
                 .serverCommands()
                 .flushAll()
@@ -134,6 +190,7 @@ class OrderServiceIntegrationTest {
                 .verifyComplete();
         ADMIN_EVENTS.set(0);
         NOTIFICATION_EVENTS.set(0);
+        ADMIN_FAILURES.set(0);
     }
 
     @Test
@@ -195,6 +252,155 @@ class OrderServiceIntegrationTest {
                 .expectStatus().isOk();
     }
 
+    @Test
+    void concurrentCartAddsAreNotLost() {
+        Flux.range(0, 20)
+                .parallel(8)
+                .runOn(Schedulers.boundedElastic())
+                .doOnNext(ignored -> webTestClient.post()
+                        .uri("/api/cart/{userId}/items", "user-10")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .bodyValue(new AddCartItemRequest(PRODUCT_ID, 1))
+                        .exchange()
+                        .expectStatus().isOk())
+                .sequential()
+                .blockLast();
+
+        webTestClient.get()
+                .uri("/api/cart/{userId}", "user-10")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(CartResponse.class)
+                .value(cart -> {
+                    assertThat(cart.items()).hasSize(1);
+                    assertThat(cart.items().get(0).getQuantity()).isEqualTo(20);
+                    assertThat(cart.total()).isEqualByComparingTo(PRODUCT_PRICE.multiply(BigDecimal.valueOf(20)));
+                });
+    }
+
+    @Test
+    void legacyJsonCartIsMigratedOnAccess() {
+        String legacyCart = String.format(
+                "{\"userId\":\"user-11\",\"items\":[{\"productId\":\"%s\",\"name\":\"Test Product\","
+                        + "\"price\":%s,\"currency\":\"USD\",\"quantity\":3,\"imageUrl\":null}],"
+                        + "\"total\":%s,\"currency\":\"USD\",\"updatedAt\":\"2024-01-01T00:00:00Z\"}",
+                PRODUCT_ID,
+                PRODUCT_PRICE.toPlainString(),
+                PRODUCT_PRICE.multiply(BigDecimal.valueOf(3)).toPlainString()
+        );
+        StepVerifier.create(redisConnectionFactory.getReactiveConnection()
+                        .stringCommands()
+                        .set(ByteBuffer.wrap("cart:user-11".getBytes(StandardCharsets.UTF_8)),
+                                ByteBuffer.wrap(legacyCart.getBytes(StandardCharsets.UTF_8))))
+                .expectNext(true)
+                .verifyComplete();
+
+        webTestClient.get()
+                .uri("/api/cart/{userId}", "user-11")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(CartResponse.class)
+                .value(cart -> {
+                    assertThat(cart.items()).hasSize(1);
+                    assertThat(cart.items().get(0).getQuantity()).isEqualTo(3);
+                    assertThat(cart.total()).isEqualByComparingTo(PRODUCT_PRICE.multiply(BigDecimal.valueOf(3)));
+                });
+
+        webTestClient.post()
+                .uri("/api/cart/{userId}/items", "user-11")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(new AddCartItemRequest(PRODUCT_ID, 1))
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(CartResponse.class)
+                .value(cart -> assertThat(cart.items().get(0).getQuantity()).isEqualTo(4));
+    }
+
+    @Test
+    void cartsGetSlidingTtlAndIdleCartsAreArchived() {
+        ByteBuffer activeKey = ByteBuffer.wrap("cart:user-12".getBytes(StandardCharsets.UTF_8));
+        ByteBuffer idleKey = ByteBuffer.wrap("cart:user-13".getBytes(StandardCharsets.UTF_8));
+        for (String userId : List.of("user-12", "user-13")) {
+            webTestClient.post()
+                    .uri("/api/cart/{userId}/items", userId)
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .bodyValue(new AddCartItemRequest(PRODUCT_ID, 2))
+                    .exchange()
+                    .expectStatus().isOk();
+        }
+        StepVerifier.create(redisConnectionFactory.getReactiveConnection().keyCommands().pTtl(activeKey))
+                .assertNext(ttl -> assertThat(ttl).isGreaterThan(Duration.ofDays(29).toMillis()))
+                .verifyComplete();
+        StepVerifier.create(redisConnectionFactory.getReactiveConnection()
+                        .keyCommands()
+                        .pExpire(idleKey, Duration.ofDays(22)))
+                .expectNext(true)
+                .verifyComplete();
+
+        StepVerifier.create(cartSweeper.sweep()).verifyComplete();
+
+        StepVerifier.create(redisConnectionFactory.getReactiveConnection().keyCommands().exists(idleKey))
+                .expectNext(false)
+                .verifyComplete();
+        StepVerifier.create(redisConnectionFactory.getReactiveConnection().keyCommands().exists(activeKey))
+                .expectNext(true)
+                .verifyComplete();
+        StepVerifier.create(databaseClient.sql("SELECT user_id, item_count, total FROM abandoned_carts")
+                        .fetch()
+                        .all())
+                .assertNext(row -> {
+                    assertThat(row.get("user_id")).isEqualTo("user-13");
+                    assertThat(row.get("item_count")).isEqualTo(1);
+                    assertThat((BigDecimal) row.get("total"))
+                            .isEqualByComparingTo(PRODUCT_PRICE.multiply(BigDecimal.valueOf(2)));
+                })
+                .verifyComplete();
+
+        webTestClient.get()
+                .uri("/actuator/metrics/cart.redis.keys")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.measurements[0].value").isEqualTo(1.0);
+        webTestClient.get()
+                .uri("/actuator/metrics/cart.redis.bytes")
+                .exchange()
+                .expectStatus().isOk();
+    }
+
+    @Test
+    void productStreamEventsRefreshCachedProducts() {
+        webTestClient.post()
+                .uri("/api/cart/{userId}/items", "user-8")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(new AddCartItemRequest(PUSHED_PRODUCT_ID, 1))
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(CartResponse.class)
+                .value(cart -> assertThat(cart.total()).isEqualByComparingTo(PRODUCT_PRICE));
+        int requests = PUSHED_PRODUCT_REQUESTS.get();
+
+        BigDecimal pushedPrice = new BigDecimal("24.99");
+        PRODUCT_STREAM_EVENTS.add("event:PRODUCT_UPDATED\ndata:{\"type\":\"PRODUCT_UPDATED\",\"product\":"
+                + productJson(PUSHED_PRODUCT_ID, pushedPrice) + "}\n\n");
+
+        await().atMost(Duration.ofSeconds(10)).untilAsserted(() -> {
+            webTestClient.delete()
+                    .uri("/api/cart/{userId}", "user-9")
+                    .exchange()
+                    .expectStatus().isOk();
+            webTestClient.post()
+                    .uri("/api/cart/{userId}/items", "user-9")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .bodyValue(new AddCartItemRequest(PUSHED_PRODUCT_ID, 1))
+                    .exchange()
+                    .expectStatus().isOk()
+                    .expectBody(CartResponse.class)
+                    .value(cart -> assertThat(cart.total()).isEqualByComparingTo(pushedPrice));
+        });
+        assertThat(PUSHED_PRODUCT_REQUESTS.get()).isEqualTo(requests);
+    }
+
     @Test
     void streamEmitsSnapshotAndUpdates() {
         Flux<ServerSentEvent<CartResponse>> stream = webTestClient.get()
@@ -205,17 +411,80 @@ class OrderServiceIntegrationTest {
                 .getResponseBody();
 
         StepVerifier.create(stream.take(2))
+                .assertNext(event -> assertThat(event.event()).isEqualTo("CART_SNAPSHOT"))
                 .then(() -> webTestClient.post()
                         .uri("/api/cart/{userId}/items", "user-3")
                         .contentType(MediaType.APPLICATION_JSON)
                         .bodyValue(new AddCartItemRequest(PRODUCT_ID, 1))
                         .exchange()
                         .expectStatus().isOk())
-                .assertNext(event -> assertThat(event.event()).isEqualTo("CART_SNAPSHOT"))
                 .assertNext(event -> assertThat(event.event()).isEqualTo("CART_UPDATED"))
                 .verifyComplete();
     }
 
+    @Test
+    void cartStreamCoalescesBurstsFromRedis() {
+        Flux<ServerSentEvent<CartResponse>> stream = webTestClient.get()
+                .uri("/api/cart/stream/{userId}", "user-15")
+                .accept(MediaType.TEXT_EVENT_STREAM)
+                .exchange()
+                .returnResult(new ParameterizedTypeReference<ServerSentEvent<CartResponse>>() {})
+                .getResponseBody();
+
+        StepVerifier.create(stream.skip(1).takeUntil(event -> event.data().items().size() == 1
+                                && event.data().items().get(0).getQuantity() == 10)
+                        .count())
+                .then(() -> Flux.range(0, 10)
+                        .parallel(10)
+                        .runOn(Schedulers.boundedElastic())
+                        .doOnNext(ignored -> webTestClient.post()
+                                .uri("/api/cart/{userId}/items", "user-15")
+                                .contentType(MediaType.APPLICATION_JSON)
+                                .bodyValue(new AddCartItemRequest(PRODUCT_ID, 1))
+                                .exchange()
+                                .expectStatus().isOk())
+                        .sequential()
+                        .blockLast())
+                .assertNext(frames -> assertThat(frames).isLessThan(10))
+                .expectComplete()
+                .verify(Duration.ofSeconds(10));
+    }
+
+    @Test
+    void cartStreamSinksExistOnlyWhileSubscribed() {
+        webTestClient.post()
+                .uri("/api/cart/{userId}/items", "user-14")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(new AddCartItemRequest(PRODUCT_ID, 1))
+                .exchange()
+                .expectStatus().isOk();
+        assertGauge("cart.stream.sinks", 0.0);
+
+        Flux<ServerSentEvent<CartResponse>> stream = webTestClient.get()
+                .uri("/api/cart/stream/{userId}", "user-14")
+                .accept(MediaType.TEXT_EVENT_STREAM)
+                .exchange()
+                .returnResult(new ParameterizedTypeReference<ServerSentEvent<CartResponse>>() {})
+                .getResponseBody();
+        StepVerifier.create(stream.take(2))
+                .assertNext(event -> assertThat(event.data().items()).hasSize(1))
+                .then(() -> {
+                    assertGauge("cart.stream.sinks", 1.0);
+                    assertGauge("cart.stream.subscribers", 1.0);
+                    webTestClient.delete()
+                            .uri("/api/cart/{userId}", "user-14")
+                            .exchange()
+                            .expectStatus().isOk();
+                })
+                .assertNext(event -> assertThat(event.data().items()).isEmpty())
+                .verifyComplete();
+
+        await().atMost(Duration.ofSeconds(5)).untilAsserted(() -> {
+            assertGauge("cart.stream.sinks", 0.0);
+            assertGauge("cart.stream.subscribers", 0.0);
+        });
+    }
+
     @Test
     void createOrderFromCartClearsCartAndEmitsEvents() {
         webTestClient.post()
@@ -224,6 +493,12 @@ class OrderServiceIntegrationTest {
                 .bodyValue(new AddCartItemRequest(PRODUCT_ID, 1))
                 .exchange()
                 .expectStatus().isOk();
+        webTestClient.post()
+                .uri("/api/cart/{userId}/items", "user-4")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(new AddCartItemRequest(UUID.randomUUID(), 2))
+                .exchange()
+                .expectStatus().isOk();
 
         CreateOrderRequest request = new CreateOrderRequest(
                 "user-4",
@@ -243,8 +518,18 @@ class OrderServiceIntegrationTest {
 
         assertThat(created).isNotNull();
         assertThat(created.status()).isEqualTo(OrderStatus.CREATED);
-        assertThat(created.items()).hasSize(1);
-        assertThat(created.total()).isEqualByComparingTo(PRODUCT_PRICE);
+        assertThat(created.items()).hasSize(2);
+        assertThat(created.total()).isEqualByComparingTo(PRODUCT_PRICE.multiply(BigDecimal.valueOf(3)));
+
+        webTestClient.get()
+                .uri("/api/orders/{id}", created.id())
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(OrderResponse.class)
+                .value(order -> {
+                    assertThat(order.items()).hasSize(2);
+                    assertThat(order.items()).extracting(item -> item.quantity()).containsExactlyInAnyOrder(1, 2);
+                });
 
         webTestClient.get()
                 .uri("/api/cart/{userId}", "user-4")
@@ -253,8 +538,219 @@ class OrderServiceIntegrationTest {
                 .expectBody(CartResponse.class)
                 .value(cart -> assertThat(cart.items()).isEmpty());
 
-        assertThat(ADMIN_EVENTS.get()).isEqualTo(1);
-        assertThat(NOTIFICATION_EVENTS.get()).isEqualTo(1);
+        await().atMost(Duration.ofSeconds(5)).untilAsserted(() -> {
+            assertThat(ADMIN_EVENTS.get()).isEqualTo(1);
+            assertThat(NOTIFICATION_EVENTS.get()).isEqualTo(1);
+        });
+    }
+
+    @Test
+    void statusEventsAreDeliveredThroughOutboxWithRetries() {
+        webTestClient.post()
+                .uri("/api/cart/{userId}/items", "user-17")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(new AddCartItemRequest(PRODUCT_ID, 1))
+                .exchange()
+                .expectStatus().isOk();
+        ADMIN_FAILURES.set(3);
+
+        OrderResponse created = webTestClient.post()
+                .uri("/api/orders")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(new CreateOrderRequest(
+                        "user-17",
+                        new ShippingAddress("Jane Doe", "123456", "Main St 1", "Berlin", "10115"),
+                        "CARD"))
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(OrderResponse.class)
+                .returnResult()
+                .getResponseBody();
+        assertThat(created).isNotNull();
+
+        webTestClient.patch()
+                .uri("/api/orders/{id}/status", created.id())
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(new UpdateOrderStatusRequest(OrderStatus.PAID, "Payment received"))
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(OrderResponse.class)
+                .value(order -> assertThat(order.status()).isEqualTo(OrderStatus.PAID));
+
+        await().atMost(Duration.ofSeconds(10)).untilAsserted(() -> {
+            assertThat(ADMIN_EVENTS.get()).isEqualTo(2);
+            assertThat(NOTIFICATION_EVENTS.get()).isEqualTo(2);
+            assertThat(databaseClient.sql("""
+                            SELECT event_type, target, attempts FROM order_outbox
+                            WHERE order_id = :orderId AND status = 'SENT'
+                            """)
+                    .bind("orderId", created.id())
+                    .fetch()
+                    .all()
+                    .collectList()
+                    .block())
+                    .hasSize(4)
+                    .anySatisfy(row -> assertThat(((Number) row.get("attempts")).intValue()).isGreaterThan(1));
+        });
+    }
+
+    @Test
+    void expiredOutboxLeasesAreReclaimed() {
+        Instant expired = Instant.now().minusSeconds(60);
+        UUID crashed = UUID.randomUUID();
+        UUID exhausted = UUID.randomUUID();
+        StepVerifier.create(Flux.just(crashed, exhausted)
+                        .concatMap(id -> databaseClient.sql("""
+                                        INSERT INTO order_outbox (id, order_id, target, event_type, payload, status,
+                                                                  attempts, last_attempt_at, created_at, lease_expires_at)
+                                        VALUES (:id, :orderId, 'ADMIN', 'ORDER_STATUS', '{}', 'PROCESSING',
+                                                :attempts, :expired, :expired, :expired)
+                                        """)
+                                .bind("id", id)
+                                .bind("orderId", UUID.randomUUID())
+                                .bind("attempts", id.equals(crashed) ? 1 : 10)
+                                .bind("expired", expired)
+                                .then())
+                        .then())
+                .verifyComplete();
+
+        await().atMost(Duration.ofSeconds(5)).untilAsserted(() -> {
+            assertThat(ADMIN_EVENTS.get()).isEqualTo(1);
+            assertThat(databaseClient.sql("SELECT id, status, attempts FROM order_outbox ORDER BY attempts")
+                    .fetch()
+                    .all()
+                    .collectList()
+                    .block())
+                    .satisfiesExactly(
+                            row -> {
+                                assertThat(row.get("id")).isEqualTo(crashed);
+                                assertThat(row.get("status")).isEqualTo("SENT");
+                                assertThat(((Number) row.get("attempts")).intValue()).isEqualTo(2);
+                            },
+                            row -> {
+                                assertThat(row.get("id")).isEqualTo(exhausted);
+                                assertThat(row.get("status")).isEqualTo("DEAD");
+                            });
+        });
+    }
+
+    @Test
+    void rejectedOutboxEventIsDeadLetteredWithoutBlockingItsBatch() {
+        List<UUID> ids = List.of(UUID.randomUUID(), UUID.randomUUID(), UUID.randomUUID());
+        StepVerifier.create(Flux.fromIterable(ids)
+                        .concatMap(id -> databaseClient.sql("""
+                                        INSERT INTO order_outbox (id, order_id, target, event_type, payload, status,
+                                                                  attempts, created_at)
+                                        VALUES (:id, :orderId, 'NOTIFICATION', 'ORDER_STATUS', :payload, 'PENDING',
+                                                0, now())
+                                        """)
+                                .bind("id", id)
+                                .bind("orderId", UUID.randomUUID())
+                                .bind("payload", id.equals(ids.get(1))
+                                        ? "{\"type\":\"ORDER_STATUS\",\"rejected\":true}"
+                                        : "{\"userId\":\"user-18\",\"type\":\"ORDER_STATUS\"}")
+                                .then())
+                        .then())
+                .verifyComplete();
+
+        await().atMost(Duration.ofSeconds(5)).untilAsserted(() -> assertThat(databaseClient.sql(
+                                "SELECT id, status FROM order_outbox")
+                        .map((row, metadata) -> Map.entry(row.get("id", UUID.class), row.get("status", String.class)))
+                        .all()
+                        .collectList()
+                        .block())
+                .containsExactlyInAnyOrder(
+                        Map.entry(ids.get(0), "SENT"),
+                        Map.entry(ids.get(1), "DEAD"),
+                        Map.entry(ids.get(2), "SENT")));
+        assertThat(NOTIFICATION_EVENTS.get()).isEqualTo(2);
+    }
+
+    @Test
+    void throttledOutboxEventIsRetriedAfterRetryAfter() {
+        UUID id = UUID.randomUUID();
+        StepVerifier.create(databaseClient.sql("""
+                                INSERT INTO order_outbox (id, order_id, target, event_type, payload, status,
+                                                          attempts, created_at)
+                                VALUES (:id, :orderId, 'NOTIFICATION', 'ORDER_STATUS', :payload, 'PENDING', 0, now())
+                                """)
+                        .bind("id", id)
+                        .bind("orderId", UUID.randomUUID())
+                        .bind("payload", "{\"type\":\"ORDER_STATUS\",\"throttled\":true}")
+                        .then())
+                .verifyComplete();
+
+        await().atMost(Duration.ofSeconds(5)).untilAsserted(() -> assertThat(databaseClient.sql(
+                                """
+                                        SELECT status, attempts, next_attempt_at > now() + interval '60 seconds' AS deferred
+                                        FROM order_outbox
+                                        WHERE id = :id
+                                        """)
+                        .bind("id", id)
+                        .fetch()
+                        .one()
+                        .block())
+                .satisfies(row -> {
+                    assertThat(row.get("status")).isEqualTo("FAILED");
+                    assertThat(((Number) row.get("attempts")).intValue()).isEqualTo(1);
+                    assertThat(row.get("deferred")).isEqualTo(true);
+                }));
+        assertThat(NOTIFICATION_EVENTS.get()).isZero();
+    }
+
+    @Test
+    void createOrderWithIdempotencyKeyReplaysFirstResult() {
+        webTestClient.post()
+                .uri("/api/cart/{userId}/items", "user-16")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(new AddCartItemRequest(PRODUCT_ID, 1))
+                .exchange()
+                .expectStatus().isOk();
+        CreateOrderRequest request = new CreateOrderRequest(
+                "user-16",
+                new ShippingAddress("Jane Doe", "123456", "Main St 1", "Berlin", "10115"),
+                "CARD"
+        );
+
+        List<UUID> orderIds = Flux.range(0, 4)
+                .parallel(4)
+                .runOn(Schedulers.boundedElastic())
+                .map(ignored -> webTestClient.post()
+                        .uri("/api/orders")
+                        .header("Idempotency-Key", "checkout-1")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .bodyValue(request)
+                        .exchange()
+                        .expectStatus().isOk()
+                        .expectBody(OrderResponse.class)
+                        .returnResult()
+                        .getResponseBody()
+                        .id())
+                .sequential()
+                .collectList()
+                .block();
+
+        webTestClient.post()
+                .uri("/api/orders")
+                .header("Idempotency-Key", "checkout-1")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(request)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(OrderResponse.class)
+                .value(order -> {
+                    assertThat(orderIds).containsOnly(order.id());
+                    assertThat(order.items()).hasSize(1);
+                });
+        StepVerifier.create(orderRepository.count()).expectNext(1L).verifyComplete();
+
+        webTestClient.post()
+                .uri("/api/orders")
+                .header("Idempotency-Key", "checkout-1")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(new CreateOrderRequest("user-16", request.shippingAddress(), "PAYPAL"))
+                .exchange()
+                .expectStatus().isEqualTo(422);
     }
 
     @Test
@@ -314,7 +810,10 @@ class OrderServiceIntegrationTest {
                 .exchange()
                 .expectStatus().isOk()
                 .expectBodyList(OrderResponse.class)
-                .value(list -> assertThat(list).hasSize(1));
+                .value(list -> {
+                    assertThat(list).hasSize(1);
+                    assertThat(list.get(0).items()).hasSize(1);
+                });
 
         webTestClient.patch()
                 .uri("/api/orders/{id}/status", created.id())
@@ -326,6 +825,69 @@ class OrderServiceIntegrationTest {
                 .value(order -> assertThat(order.status()).isEqualTo(OrderStatus.PAID));
     }
 
+    @Test
+    void getOrdersPagesWithCursor() {
+        for (int i = 0; i < 3; i++) {
+            webTestClient.post()
+                    .uri("/api/cart/{userId}/items", "user-7")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .bodyValue(new AddCartItemRequest(PRODUCT_ID, 1))
+                    .exchange()
+                    .expectStatus().isOk();
+            webTestClient.post()
+                    .uri("/api/orders")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .bodyValue(new CreateOrderRequest(
+                            "user-7",
+                            new ShippingAddress("Jane Doe", "123456", "Main St 1", "Berlin", "10115"),
+                            "CARD"
+                    ))
+                    .exchange()
+                    .expectStatus().isOk();
+        }
+
+        EntityExchangeResult<List<OrderResponse>> firstPage = webTestClient.get()
+                .uri(uriBuilder -> uriBuilder.path("/api/orders")
+                        .queryParam("userId", "user-7")
+                        .queryParam("size", 2)
+                        .build())
+                .exchange()
+                .expectStatus().isOk()
+                .expectBodyList(OrderResponse.class)
+                .returnResult();
+
+        assertThat(firstPage.getResponseBody()).hasSize(2);
+        assertThat(firstPage.getResponseBody().get(0).createdAt())
+                .isAfterOrEqualTo(firstPage.getResponseBody().get(1).createdAt());
+        String cursor = firstPage.getResponseHeaders().getFirst("X-Next-Cursor");
+        assertThat(cursor).isNotBlank();
+
+        webTestClient.get()
+                .uri(uriBuilder -> uriBuilder.path("/api/orders")
+                        .queryParam("userId", "user-7")
+                        .queryParam("size", 2)
+                        .queryParam("cursor", cursor)
+                        .build())
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().doesNotExist("X-Next-Cursor")
+                .expectBodyList(OrderResponse.class)
+                .value(list -> {
+                    assertThat(list).hasSize(1);
+                    assertThat(list.get(0).id()).isNotIn(firstPage.getResponseBody().stream()
+                            .map(OrderResponse::id)
+                            .toList());
+                });
+
+        webTestClient.get()
+                .uri(uriBuilder -> uriBuilder.path("/api/orders")
+                        .queryParam("userId", "user-7")
+                        .queryParam("cursor", "not-a-cursor")
+                        .build())
+                .exchange()
+                .expectStatus().isBadRequest();
+    }
+
     @Test
     void getOrderNotFoundReturnsApiError() {
         webTestClient.get()
@@ -336,12 +898,39 @@ class OrderServiceIntegrationTest {
                 .value(error -> assertThat(error.message()).isEqualTo("Order not found"));
     }
 
-    private static String productJson() {
+    private void assertGauge(String name, double expected) {
+        webTestClient.get()
+                .uri("/actuator/metrics/{name}", name)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.measurements[0].value").isEqualTo(expected);
+    }
+
+    private static int batchSize(String body) {
+        try {
+            return OBJECT_MAPPER.readTree(body).size();
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static String productJson(UUID productId, BigDecimal price) {
         return String.format(
                 "{\"id\":\"%s\",\"name\":\"Test Product\",\"price\":%s,"
                         + "\"currency\":\"USD\",\"imageUrl\":\"https://example.com/product.png\"}",
-                PRODUCT_ID,
-                PRODUCT_PRICE.toPlainString()
+                productId,
+                price.toPlainString()
         );
     }
+
+    private static String nextProductStreamEvent() {
+        try {
+            String event = PRODUCT_STREAM_EVENTS.poll(200, TimeUnit.MILLISECONDS);
+            return event == null ? "" : event;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return "";
+        }
+    }
 }
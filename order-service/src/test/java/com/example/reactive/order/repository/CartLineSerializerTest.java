@@ -0,0 +1,131 @@
+package com.example.reactive.order.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.example.reactive.order.model.Cart;
+import com.example.reactive.order.model.CartItem;
+import com.example.reactive.order.model.CartLine;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.springframework.data.redis.serializer.SerializationException;
+
+@Slf4j
+class CartLineSerializerTest {
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper().registerModule(new JavaTimeModule());
+    private static final CartLine LINE = new CartLine("Nimbus Chair", new BigDecimal("249.90"), "USD",
+            "https://cdn.example.com/products/nimbus-chair.png");
+
+    private final CartLineSerializer json = new CartLineSerializer(CartLineSerializer.Format.JSON, OBJECT_MAPPER);
+    private final CartLineSerializer binary = new CartLineSerializer(CartLineSerializer.Format.BINARY, OBJECT_MAPPER);
+
+    @Test
+    void roundTripsBothFormats() {
+        assertThat(json.deserialize(json.serialize(LINE))).isEqualTo(LINE);
+        assertThat(binary.deserialize(binary.serialize(LINE))).isEqualTo(LINE);
+        assertThat(binary.serialize(LINE)[0]).isEqualTo(CartLineSerializer.BINARY_V1);
+    }
+
+    @Test
+    void readsEitherFormatRegardlessOfConfiguredWriter() {
+        assertThat(binary.deserialize(json.serialize(LINE))).isEqualTo(LINE);
+        assertThat(json.deserialize(binary.serialize(LINE))).isEqualTo(LINE);
+    }
+
+    @Test
+    void preservesNullsScaleAndNegativeScale() {
+        CartLine sparse = new CartLine(null, null, "EUR", null);
+        CartLine scaled = new CartLine("Näher 🪡", new BigDecimal("1E+3"), "USD", "");
+        CartLine large = new CartLine("Bulk", new BigDecimal("123456789012345678901234567890.000001"), "USD", null);
+
+        assertThat(binary.deserialize(binary.serialize(sparse))).isEqualTo(sparse);
+        assertThat(binary.deserialize(binary.serialize(scaled))).isEqualTo(scaled);
+        assertThat(binary.deserialize(binary.serialize(large))).isEqualTo(large);
+    }
+
+    @Test
+    void binaryIsSmallerThanJson() {
+        assertThat(binary.serialize(LINE).length).isLessThan(json.serialize(LINE).length);
+    }
+
+    @Test
+    void rejectsUnknownVersionAndTruncatedPayloads() {
+        byte[] encoded = binary.serialize(LINE);
+        byte[] truncated = Arrays.copyOf(encoded, encoded.length - 5);
+        byte[] unknown = encoded.clone();
+        unknown[0] = 42;
+
+        assertThatThrownBy(() -> binary.deserialize(truncated)).isInstanceOf(SerializationException.class);
+        assertThatThrownBy(() -> binary.deserialize(unknown)).isInstanceOf(SerializationException.class);
+    }
+
+    @Test
+    void rejectsOversizedAndNegativeLengths() {
+        byte[] hugeName = {CartLineSerializer.BINARY_V1, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, 0x07};
+        byte[] hugePrice = {CartLineSerializer.BINARY_V1, 0, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, 0x07};
+        byte[] negativeName = {CartLineSerializer.BINARY_V1, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF,
+                (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, 0x01};
+
+        assertThatThrownBy(() -> binary.deserialize(hugeName)).isInstanceOf(SerializationException.class);
+        assertThatThrownBy(() -> binary.deserialize(hugePrice)).isInstanceOf(SerializationException.class);
+        assertThatThrownBy(() -> binary.deserialize(negativeName)).isInstanceOf(SerializationException.class);
+    }
+
+    @Test
+    @EnabledIfEnvironmentVariable(named = "CART_SERIALIZER_BENCHMARK", matches = "true")
+    void benchmark() throws Exception {
+        for (int lines : new int[] {1, 5, 20}) {
+            List<CartLine> cartLines = new ArrayList<>();
+            List<CartItem> items = new ArrayList<>();
+            for (int i = 0; i < lines; i++) {
+                CartLine line = new CartLine("Product " + i + " Nimbus Chair", new BigDecimal("249.90").add(BigDecimal.valueOf(i)),
+                        "USD", "https://cdn.example.com/products/" + UUID.randomUUID() + ".png");
+                cartLines.add(line);
+                items.add(new CartItem(UUID.randomUUID(), line.name(), line.price(), line.currency(), 2, line.imageUrl()));
+            }
+            Cart cart = new Cart("user-" + lines, items, BigDecimal.TEN, "USD", Instant.now());
+            int legacyBytes = OBJECT_MAPPER.writeValueAsBytes(cart).length;
+            int jsonBytes = payloadBytes(json, cartLines);
+            int binaryBytes = payloadBytes(binary, cartLines);
+            log.info("Cart payload size: lines={}, legacyCartJson={}B, jsonLines={}B, binaryLines={}B",
+                    lines, legacyBytes, jsonBytes, binaryBytes);
+            assertThat(binaryBytes).isLessThan(jsonBytes);
+        }
+        report("json", json);
+        report("binary", binary);
+    }
+
+    private static int payloadBytes(CartLineSerializer serializer, List<CartLine> lines) {
+        return lines.stream().mapToInt(line -> serializer.serialize(line).length).sum();
+    }
+
+    private static void report(String name, CartLineSerializer serializer) {
+        int iterations = 2_000_000;
+        byte[] encoded = serializer.serialize(LINE);
+        long sink = 0;
+        for (int i = 0; i < iterations; i++) {
+            sink += serializer.serialize(LINE).length + serializer.deserialize(encoded).name().length();
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            sink += serializer.serialize(LINE).length;
+        }
+        long serializeNs = (System.nanoTime() - start) / iterations;
+        start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            sink += serializer.deserialize(encoded).name().length();
+        }
+        long deserializeNs = (System.nanoTime() - start) / iterations;
+        log.info("Cart line serializer: format={}, serialize={}ns/op, deserialize={}ns/op, checksum={}",
+                name, serializeNs, deserializeNs, sink % 10);
+    }
+}
@@ -1,6 +1,7 @@
 package com.example.reactive.payment.client;
 
 import com.example.reactive.payment.model.NotificationEvent;
+import java.util.List;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.MediaType;
 import org.springframework.stereotype.Component;
@@ -23,11 +24,11 @@ public class NotificationClient {
                 .bodyToMono(Void.class);
     }
 
-    public Mono<Void> publishRaw(String payload) {
+    public Mono<Void> publishRawBatch(List<String> payloads) {
         return webClient.post()
-                .uri("/api/notifications/events")
+                .uri("/api/notifications/events/batch")
                 .contentType(MediaType.APPLICATION_JSON)
-                .bodyValue(payload)
+                .bodyValue("[" + String.join(",", payloads) + "]")
                 .retrieve()
                 .bodyToMono(Void.class);
     }
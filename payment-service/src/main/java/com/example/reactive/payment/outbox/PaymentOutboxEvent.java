@@ -36,4 +36,6 @@ public class PaymentOutboxEvent {
     private Instant sentAt;
     @Column("created_at")
     private Instant createdAt;
+    @Column("lease_expires_at")
+    private Instant leaseExpiresAt;
 }
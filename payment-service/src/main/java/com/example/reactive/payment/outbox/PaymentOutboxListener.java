@@ -0,0 +1,89 @@
+package com.example.reactive.payment.outbox;
+
+import io.r2dbc.postgresql.api.Notification;
+import io.r2dbc.postgresql.api.PostgresqlConnection;
+import io.r2dbc.postgresql.api.PostgresqlResult;
+import io.r2dbc.spi.Connection;
+import io.r2dbc.spi.ConnectionFactory;
+import io.r2dbc.spi.Wrapped;
+import jakarta.annotation.PreDestroy;
+import java.time.Duration;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.util.retry.Retry;
+
+@Component
+@Slf4j
+public class PaymentOutboxListener {
+    private final ConnectionFactory connectionFactory;
+    private final PaymentOutboxPublisher publisher;
+    private final PaymentOutboxProperties properties;
+    private volatile Disposable subscription;
+
+    public PaymentOutboxListener(ConnectionFactory connectionFactory,
+                                 PaymentOutboxPublisher publisher,
+                                 PaymentOutboxProperties properties) {
+        this.connectionFactory = connectionFactory;
+        this.publisher = publisher;
+        this.properties = properties;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!properties.isListenEnabled()) {
+            return;
+        }
+        Duration minBackoff = Duration.ofMillis(properties.getInitialBackoffMs());
+        subscription = Flux.defer(this::listen)
+                .retryWhen(Retry.backoff(Long.MAX_VALUE, minBackoff)
+                        .maxBackoff(Duration.ofMillis(Math.max(properties.getInitialBackoffMs(),
+                                properties.getMaxBackoffMs())))
+                        .transientErrors(true)
+                        .doBeforeRetry(signal -> log.warn("Outbox LISTEN failed, reconnecting: attempt={}, error={}",
+                                signal.totalRetries() + 1, signal.failure().toString())))
+                .repeatWhen(completed -> completed.delayElements(minBackoff))
+                .subscribe(notification -> publisher.wakeUp());
+    }
+
+    @PreDestroy
+    public void stop() {
+        Disposable current = subscription;
+        if (current != null) {
+            current.dispose();
+        }
+    }
+
+    private Flux<Notification> listen() {
+        return Flux.usingWhen(
+                connectionFactory.create(),
+                connection -> {
+                    PostgresqlConnection postgres = unwrap(connection);
+                    Flux<Notification> notifications = postgres.getNotifications();
+                    return postgres.createStatement("LISTEN " + PaymentOutboxRepository.CHANNEL)
+                            .execute()
+                            .flatMap(PostgresqlResult::getRowsUpdated)
+                            .then()
+                            .doOnSuccess(ignored -> {
+                                log.info("Outbox LISTEN connected: channel={}", PaymentOutboxRepository.CHANNEL);
+                                publisher.wakeUp();
+                            })
+                            .thenMany(notifications);
+                },
+                Connection::close);
+    }
+
+    private static PostgresqlConnection unwrap(Connection connection) {
+        Object current = connection;
+        while (!(current instanceof PostgresqlConnection) && current instanceof Wrapped<?> wrapped) {
+            current = wrapped.unwrap();
+        }
+        if (current instanceof PostgresqlConnection postgres) {
+            return postgres;
+        }
+        throw new IllegalStateException("Outbox LISTEN requires a PostgreSQL connection: " + connection);
+    }
+}
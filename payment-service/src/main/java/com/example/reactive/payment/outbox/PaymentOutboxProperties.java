@@ -10,10 +10,22 @@ import lombok.Setter;
 @Getter
 @Setter
 public class PaymentOutboxProperties {
-    private long pollIntervalMs = 1000;
+    private long pollIntervalMs = 5000;
     private int batchSize = 100;
     private int maxAttempts = 10;
     private long initialBackoffMs = 500;
     private long maxBackoffMs = 10000;
     private int publishConcurrency = 4;
+    private long leaseMs = 30000;
+    private boolean listenEnabled = true;
+    private Retention retention = new Retention();
+
+    @Getter
+    @Setter
+    public static class Retention {
+        private long intervalMs = 3_600_000L;
+        private long retainMs = 604_800_000L;
+        private int batchSize = 1000;
+        private String archiveDir;
+    }
 }
@@ -1,20 +1,45 @@
 package com.example.reactive.payment.outbox;
 
+import java.util.concurrent.atomic.AtomicBoolean;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
 
 @Component
 @RequiredArgsConstructor
 @Slf4j
 public class PaymentOutboxPublisher {
     private final PaymentOutboxService outboxService;
+    private final PaymentOutboxProperties properties;
+    private final AtomicBoolean draining = new AtomicBoolean();
+    private final AtomicBoolean requested = new AtomicBoolean();
 
-    @Scheduled(fixedDelayString = "${app.outbox.poll-interval-ms:1000}")
+    @Scheduled(fixedDelayString = "${app.outbox.poll-interval-ms:5000}")
     public void publish() {
-        outboxService.publishPendingEvents()
+        wakeUp();
+    }
+
+    public void wakeUp() {
+        requested.set(true);
+        if (!draining.compareAndSet(false, true)) {
+            return;
+        }
+        AtomicBoolean fullBatch = new AtomicBoolean();
+        Mono.defer(() -> {
+                    requested.set(false);
+                    return outboxService.publishPendingEvents();
+                })
+                .doOnNext(claimed -> fullBatch.set(claimed >= properties.getBatchSize()))
+                .repeat(() -> fullBatch.get() || requested.get())
                 .doOnError(error -> log.warn("Outbox publish cycle failed", error))
+                .doFinally(signal -> {
+                    draining.set(false);
+                    if (requested.get()) {
+                        wakeUp();
+                    }
+                })
                 .subscribe();
     }
 }
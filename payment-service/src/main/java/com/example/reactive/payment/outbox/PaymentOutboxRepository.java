@@ -1,5 +1,7 @@
 package com.example.reactive.payment.outbox;
 
+import io.r2dbc.spi.Row;
+import java.time.Duration;
 import java.time.Instant;
 import java.util.UUID;
 import lombok.RequiredArgsConstructor;
@@ -11,39 +13,45 @@ import reactor.core.publisher.Mono;
 @Repository
 @RequiredArgsConstructor
 public class PaymentOutboxRepository {
+    public static final String CHANNEL = "payment_outbox";
+
     private final DatabaseClient databaseClient;
 
     public Mono<Void> insertIgnoreDuplicate(PaymentOutboxEvent event) {
         DatabaseClient.GenericExecuteSpec spec = databaseClient.sql("""
-                        INSERT INTO payment_outbox (
-                            id,
-                            payment_id,
-                            order_id,
-                            target,
-                            event_type,
-                            payload,
-                            status,
-                            attempts,
-                            next_attempt_at,
-                            last_attempt_at,
-                            sent_at,
-                            created_at
-                        ) VALUES (
-                            :id,
-                            :paymentId,
-                            :orderId,
-                            :target,
-                            :eventType,
-                            :payload,
-                            :status,
-                            :attempts,
-                            :nextAttemptAt,
-                            :lastAttemptAt,
-                            :sentAt,
-                            :createdAt
+                        WITH inserted AS (
+                            INSERT INTO payment_outbox (
+                                id,
+                                payment_id,
+                                order_id,
+                                target,
+                                event_type,
+                                payload,
+                                status,
+                                attempts,
+                                next_attempt_at,
+                                last_attempt_at,
+                                sent_at,
+                                created_at
+                            ) VALUES (
+                                :id,
+                                :paymentId,
+                                :orderId,
+                                :target,
+                                :eventType,
+                                :payload,
+                                :status,
+                                :attempts,
+                                :nextAttemptAt,
+                                :lastAttemptAt,
+                                :sentAt,
+                                :createdAt
+                            )
+                            ON CONFLICT (payment_id, event_type, target) DO NOTHING
+                            RETURNING id
                         )
-                        ON CONFLICT (payment_id, event_type, target) DO NOTHING
-                        """)
+                        SELECT pg_notify('%s', '') FROM inserted
+                        """.formatted(CHANNEL))
                 .bind("id", event.getId())
                 .bind("paymentId", event.getPaymentId())
                 .bind("orderId", event.getOrderId())
@@ -56,99 +64,130 @@ public class PaymentOutboxRepository {
         spec = bindNullable(spec, "nextAttemptAt", event.getNextAttemptAt(), Instant.class);
         spec = bindNullable(spec, "lastAttemptAt", event.getLastAttemptAt(), Instant.class);
         spec = bindNullable(spec, "sentAt", event.getSentAt(), Instant.class);
-        return spec.fetch().rowsUpdated().then();
+        return spec.fetch().all().then();
     }
 
-    public Flux<PaymentOutboxEvent> findReadyEvents(int limit, int maxAttempts, Instant now) {
+    public Flux<PaymentOutboxEvent> claimReadyEvents(int limit, int maxAttempts, Instant now, Duration lease) {
         return databaseClient.sql("""
-                        SELECT id,
-                               payment_id,
-                               order_id,
-                               target,
-                               event_type,
-                               payload,
-                               status,
-                               attempts,
-                               next_attempt_at,
-                               last_attempt_at,
-                               sent_at,
-                               created_at
-                        FROM payment_outbox
-                        WHERE status IN ('PENDING', 'FAILED')
-                          AND attempts < :maxAttempts
-                          AND (next_attempt_at IS NULL OR next_attempt_at <= :now)
-                        ORDER BY created_at
-                        LIMIT :limit
+                        WITH claimed AS (
+                            UPDATE payment_outbox
+                            SET status = CASE WHEN attempts < :maxAttempts THEN 'PROCESSING' ELSE 'DEAD' END,
+                                attempts = CASE WHEN attempts < :maxAttempts THEN attempts + 1 ELSE attempts END,
+                                last_attempt_at = :now,
+                                lease_expires_at = CASE WHEN attempts < :maxAttempts THEN :leaseExpiresAt END
+                            WHERE id IN (
+                                SELECT id
+                                FROM payment_outbox
+                                WHERE (status IN ('PENDING', 'FAILED')
+                                        AND (attempts >= :maxAttempts
+                                            OR next_attempt_at IS NULL
+                                            OR next_attempt_at <= :now))
+                                   OR (status = 'PROCESSING'
+                                        AND (lease_expires_at <= :now
+                                            OR (lease_expires_at IS NULL AND last_attempt_at <= :staleBefore)))
+                                ORDER BY created_at
+                                LIMIT :limit
+                                FOR UPDATE SKIP LOCKED
+                            )
+                            RETURNING id,
+                                      payment_id,
+                                      order_id,
+                                      target,
+                                      event_type,
+                                      payload,
+                                      status,
+                                      attempts,
+                                      next_attempt_at,
+                                      last_attempt_at,
+                                      sent_at,
+                                      created_at,
+                                      lease_expires_at
+                        )
+                        SELECT * FROM claimed WHERE status = 'PROCESSING'
                         """)
                 .bind("now", now)
+                .bind("leaseExpiresAt", now.plus(lease))
+                .bind("staleBefore", now.minus(lease))
                 .bind("maxAttempts", maxAttempts)
                 .bind("limit", limit)
-                .map((row, metadata) -> {
-                    PaymentOutboxEvent event = new PaymentOutboxEvent();
-                    event.setId(row.get("id", UUID.class));
-                    event.setPaymentId(row.get("payment_id", UUID.class));
-                    event.setOrderId(row.get("order_id", UUID.class));
-                    event.setTarget(OutboxTarget.valueOf(row.get("target", String.class)));
-                    event.setEventType(row.get("event_type", String.class));
-                    event.setPayload(row.get("payload", String.class));
-                    event.setStatus(OutboxStatus.valueOf(row.get("status", String.class)));
-                    Integer attempts = row.get("attempts", Integer.class);
-                    event.setAttempts(attempts == null ? 0 : attempts);
-                    event.setNextAttemptAt(row.get("next_attempt_at", Instant.class));
-                    event.setLastAttemptAt(row.get("last_attempt_at", Instant.class));
-                    event.setSentAt(row.get("sent_at", Instant.class));
-                    event.setCreatedAt(row.get("created_at", Instant.class));
-                    return event;
-                })
+                .map((row, metadata) -> toEvent(row))
                 .all();
     }
 
-    public Mono<Boolean> claimEvent(UUID id, Instant now, Instant nextAttemptAt) {
+    public Mono<Void> markSent(UUID[] ids, Instant sentAt) {
         return databaseClient.sql("""
                         UPDATE payment_outbox
-                        SET status = 'PROCESSING',
-                            attempts = attempts + 1,
-                            last_attempt_at = :now,
-                            next_attempt_at = :nextAttemptAt
-                        WHERE id = :id
-                          AND status IN ('PENDING', 'FAILED')
+                        SET status = 'SENT',
+                            sent_at = :sentAt,
+                            lease_expires_at = NULL
+                        WHERE id = ANY(:ids)
                         """)
-                .bind("now", now)
-                .bind("nextAttemptAt", nextAttemptAt)
-                .bind("id", id)
+                .bind("sentAt", sentAt)
+                .bind("ids", ids)
                 .fetch()
                 .rowsUpdated()
-                .map(rows -> rows > 0);
+                .then();
     }
 
-    public Mono<Void> markSent(UUID id, Instant sentAt) {
+    public Mono<Void> markFailed(UUID[] ids, Instant nextAttemptAt) {
         return databaseClient.sql("""
                         UPDATE payment_outbox
-                        SET status = 'SENT',
-                            sent_at = :sentAt
-                        WHERE id = :id
+                        SET status = 'FAILED',
+                            next_attempt_at = :nextAttemptAt,
+                            lease_expires_at = NULL
+                        WHERE id = ANY(:ids)
                         """)
-                .bind("sentAt", sentAt)
-                .bind("id", id)
+                .bind("nextAttemptAt", nextAttemptAt)
+                .bind("ids", ids)
                 .fetch()
                 .rowsUpdated()
                 .then();
     }
 
-    public Mono<Void> markFailed(UUID id, Instant nextAttemptAt) {
+    public Mono<Void> markDead(UUID[] ids) {
         return databaseClient.sql("""
                         UPDATE payment_outbox
-                        SET status = 'FAILED',
-                            next_attempt_at = :nextAttemptAt
-                        WHERE id = :id
+                        SET status = 'DEAD',
+                            lease_expires_at = NULL
+                        WHERE id = ANY(:ids)
                         """)
-                .bind("nextAttemptAt", nextAttemptAt)
-                .bind("id", id)
+                .bind("ids", ids)
                 .fetch()
                 .rowsUpdated()
                 .then();
     }
 
+    public Flux<PaymentOutboxEvent> deleteFinishedBefore(Instant cutoff, int limit) {
+        return databaseClient.sql("""
+                        DELETE FROM payment_outbox
+                        WHERE id IN (
+                            SELECT id
+                            FROM payment_outbox
+                            WHERE (status = 'SENT' AND sent_at < :cutoff)
+                               OR (status = 'DEAD' AND last_attempt_at < :cutoff)
+                            LIMIT :limit
+                            FOR UPDATE SKIP LOCKED
+                        )
+                        RETURNING id,
+                                  payment_id,
+                                  order_id,
+                                  target,
+                                  event_type,
+                                  payload,
+                                  status,
+                                  attempts,
+                                  next_attempt_at,
+                                  last_attempt_at,
+                                  sent_at,
+                                  created_at,
+                                  lease_expires_at
+                        """)
+                .bind("cutoff", cutoff)
+                .bind("limit", limit)
+                .map((row, metadata) -> toEvent(row))
+                .all();
+    }
+
     public Mono<Void> deleteAll() {
         return databaseClient.sql("DELETE FROM payment_outbox")
                 .fetch()
@@ -156,6 +195,25 @@ public class PaymentOutboxRepository {
                 .then();
     }
 
+    private PaymentOutboxEvent toEvent(Row row) {
+        PaymentOutboxEvent event = new PaymentOutboxEvent();
+        event.setId(row.get("id", UUID.class));
+        event.setPaymentId(row.get("payment_id", UUID.class));
+        event.setOrderId(row.get("order_id", UUID.class));
+        event.setTarget(OutboxTarget.valueOf(row.get("target", String.class)));
+        event.setEventType(row.get("event_type", String.class));
+        event.setPayload(row.get("payload", String.class));
+        event.setStatus(OutboxStatus.valueOf(row.get("status", String.class)));
+        Integer attempts = row.get("attempts", Integer.class);
+        event.setAttempts(attempts == null ? 0 : attempts);
+        event.setNextAttemptAt(row.get("next_attempt_at", Instant.class));
+        event.setLastAttemptAt(row.get("last_attempt_at", Instant.class));
+        event.setSentAt(row.get("sent_at", Instant.class));
+        event.setCreatedAt(row.get("created_at", Instant.class));
+        event.setLeaseExpiresAt(row.get("lease_expires_at", Instant.class));
+        return event;
+    }
+
     private DatabaseClient.GenericExecuteSpec bindNullable(DatabaseClient.GenericExecuteSpec spec,
                                                            String name,
                                                            Instant value,
@@ -0,0 +1,154 @@
+package com.example.reactive.payment.outbox;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.zip.GZIPOutputStream;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.ReactiveTransactionManager;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+@Component
+@Slf4j
+public class PaymentOutboxRetention {
+    private final PaymentOutboxRepository repository;
+    private final PaymentOutboxProperties.Retention properties;
+    private final ObjectMapper objectMapper;
+    private final TransactionalOperator transactionalOperator;
+    private final Counter deletedEvents;
+    private final Counter archivedEvents;
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    public PaymentOutboxRetention(PaymentOutboxRepository repository,
+                                  PaymentOutboxProperties properties,
+                                  ObjectMapper objectMapper,
+                                  ReactiveTransactionManager transactionManager,
+                                  MeterRegistry meterRegistry) {
+        this.repository = repository;
+        this.properties = properties.getRetention();
+        this.objectMapper = objectMapper;
+        this.transactionalOperator = TransactionalOperator.create(transactionManager);
+        this.deletedEvents = Counter.builder("outbox.retention.deleted")
+                .description("Sent and dead-lettered payment outbox events removed by retention")
+                .register(meterRegistry);
+        this.archivedEvents = Counter.builder("outbox.retention.archived")
+                .description("Sent and dead-lettered payment outbox events exported before removal")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(initialDelayString = "${app.outbox.retention.interval-ms:3600000}",
+            fixedDelayString = "${app.outbox.retention.interval-ms:3600000}")
+    public void scheduledPurge() {
+        purge().subscribe();
+    }
+
+    public Mono<Long> purge() {
+        return Mono.defer(() -> {
+            if (!running.compareAndSet(false, true)) {
+                return Mono.just(0L);
+            }
+            Instant cutoff = Instant.now().minusMillis(properties.getRetainMs());
+            AtomicLong deleted = new AtomicLong();
+            AtomicBoolean fullBatch = new AtomicBoolean();
+            return Mono.defer(() -> purgeBatch(cutoff))
+                    .doOnNext(count -> {
+                        fullBatch.set(count >= properties.getBatchSize());
+                        deleted.addAndGet(count);
+                        deletedEvents.increment(count);
+                    })
+                    .repeat(fullBatch::get)
+                    .then(Mono.fromCallable(deleted::get))
+                    .doOnNext(count -> log.info("Outbox retention finished: cutoff={}, deleted={}", cutoff, count))
+                    .doOnError(error -> log.warn("Outbox retention failed: deleted={}", deleted.get(), error))
+                    .onErrorResume(error -> Mono.just(deleted.get()))
+                    .doFinally(signal -> running.set(false));
+        });
+    }
+
+    private Mono<Integer> purgeBatch(Instant cutoff) {
+        AtomicReference<Archive> staged = new AtomicReference<>();
+        return transactionalOperator.transactional(
+                        repository.deleteFinishedBefore(cutoff, properties.getBatchSize())
+                                .collectList()
+                                .flatMap(events -> stage(events)
+                                        .doOnNext(staged::set)
+                                        .thenReturn(events.size())))
+                .onErrorResume(error -> discard(staged.get()).then(Mono.error(error)))
+                .flatMap(count -> promote(staged.get()).thenReturn(count));
+    }
+
+    private Mono<Archive> stage(List<PaymentOutboxEvent> events) {
+        String archiveDir = properties.getArchiveDir();
+        if (events.isEmpty() || archiveDir == null || archiveDir.isBlank()) {
+            return Mono.empty();
+        }
+        return Mono.fromCallable(() -> write(Path.of(archiveDir), events))
+                .subscribeOn(Schedulers.boundedElastic());
+    }
+
+    private Mono<Void> promote(Archive archive) {
+        if (archive == null) {
+            return Mono.empty();
+        }
+        return Mono.<Void>fromRunnable(() -> {
+                    try {
+                        Files.move(archive.partial(), archive.target(), StandardCopyOption.ATOMIC_MOVE);
+                    } catch (IOException e) {
+                        throw new IllegalStateException("Failed to publish outbox archive " + archive.target(), e);
+                    }
+                })
+                .subscribeOn(Schedulers.boundedElastic())
+                .doOnSuccess(ignored -> archivedEvents.increment(archive.events()));
+    }
+
+    private Mono<Void> discard(Archive archive) {
+        if (archive == null) {
+            return Mono.empty();
+        }
+        return Mono.<Void>fromRunnable(() -> {
+                    try {
+                        Files.deleteIfExists(archive.partial());
+                    } catch (IOException e) {
+                        log.warn("Failed to remove staged outbox archive: file={}", archive.partial(), e);
+                    }
+                })
+                .subscribeOn(Schedulers.boundedElastic());
+    }
+
+    private Archive write(Path directory, List<PaymentOutboxEvent> events) {
+        String name = "payment-outbox-" + Instant.now().toEpochMilli() + "-" + events.get(0).getId() + ".ndjson.gz";
+        try {
+            Files.createDirectories(directory);
+            Path partial = directory.resolve(name + ".part");
+            try (BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(
+                    new GZIPOutputStream(Files.newOutputStream(partial)), StandardCharsets.UTF_8))) {
+                for (PaymentOutboxEvent event : events) {
+                    writer.write(objectMapper.writeValueAsString(event));
+                    writer.newLine();
+                }
+            }
+            return new Archive(partial, directory.resolve(name), events.size());
+        } catch (IOException e) {
+            throw new IllegalStateException("Failed to archive outbox events to " + directory, e);
+        }
+    }
+
+    private record Archive(Path partial, Path target, int events) {
+    }
+}
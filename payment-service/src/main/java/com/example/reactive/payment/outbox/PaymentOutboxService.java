@@ -7,12 +7,23 @@ import com.example.reactive.payment.model.NotificationEvent;
 import com.example.reactive.payment.model.Payment;
 import com.example.reactive.payment.model.PaymentStatus;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import java.time.Duration;
 import java.time.Instant;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.Collection;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
+import java.util.stream.Collectors;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
 import org.springframework.stereotype.Service;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 import reactor.core.scheduler.Schedulers;
 
@@ -20,6 +31,8 @@ import reactor.core.scheduler.Schedulers;
 @RequiredArgsConstructor
 @Slf4j
 public class PaymentOutboxService {
+    private static final Set<Integer> REJECTED_STATUSES = Set.of(400, 413, 415, 422);
+
     private final PaymentOutboxRepository repository;
     private final PaymentOutboxProperties properties;
     private final ObjectMapper objectMapper;
@@ -48,11 +61,17 @@ public class PaymentOutboxService {
         ).then();
     }
 
-    public Mono<Void> publishPendingEvents() {
+    public Mono<Integer> publishPendingEvents() {
         Instant now = Instant.now();
-        return repository.findReadyEvents(properties.getBatchSize(), properties.getMaxAttempts(), now)
-                .flatMap(event -> claimAndPublish(event, now), properties.getPublishConcurrency())
-                .then();
+        return repository.claimReadyEvents(properties.getBatchSize(), properties.getMaxAttempts(), now,
+                        Duration.ofMillis(properties.getLeaseMs()))
+                .collectList()
+                .flatMap(events -> Flux.fromIterable(events.stream()
+                                .collect(Collectors.groupingBy(PaymentOutboxEvent::getTarget))
+                                .entrySet())
+                        .flatMap(entry -> publishBatch(entry.getKey(), entry.getValue()),
+                                properties.getPublishConcurrency())
+                        .then(Mono.just(events.size())));
     }
 
     private Mono<Void> enqueueEvent(Payment payment, OutboxTarget target, String eventType, Object payload) {
@@ -71,36 +90,85 @@ public class PaymentOutboxService {
                             Instant.now(),
                             null,
                             null,
-                            Instant.now()
+                            Instant.now(),
+                            null
                     );
                     return repository.insertIgnoreDuplicate(event);
                 });
     }
 
-    private Mono<Void> claimAndPublish(PaymentOutboxEvent event, Instant now) {
-        Instant nextAttemptAt = nextAttemptAt(event.getAttempts() + 1);
-        return repository.claimEvent(event.getId(), now, nextAttemptAt)
-                .flatMap(claimed -> {
-                    if (!claimed) {
-                        return Mono.empty();
+    private Mono<Void> publishBatch(OutboxTarget target, List<PaymentOutboxEvent> events) {
+        List<String> payloads = events.stream()
+                .map(PaymentOutboxEvent::getPayload)
+                .toList();
+        return dispatchBatch(target, payloads)
+                .then(Mono.defer(() -> repository.markSent(ids(events), Instant.now())))
+                .onErrorResume(error -> {
+                    if (isRejected(error) && events.size() > 1) {
+                        log.warn("Outbox batch rejected, publishing events one by one: target={}, size={}, status={}",
+                                target, events.size(), ((WebClientResponseException) error).getStatusCode());
+                        return Flux.fromIterable(events)
+                                .concatMap(event -> publishBatch(target, List.of(event)))
+                                .then();
+                    }
+                    if (isRejected(error)) {
+                        log.warn("Outbox event rejected, dead-lettering: id={}, target={}, status={}",
+                                events.get(0).getId(), target, ((WebClientResponseException) error).getStatusCode());
+                        return repository.markDead(ids(events));
                     }
-                    return dispatchEvent(event)
-                            .then(repository.markSent(event.getId(), Instant.now()))
-                            .onErrorResume(error -> {
-                                log.warn("Failed to publish outbox event: id={}, target={}, type={}",
-                                        event.getId(), event.getTarget(), event.getEventType(), error);
-                                return repository.markFailed(event.getId(), nextAttemptAt);
-                            });
+                    log.warn("Failed to publish outbox batch: target={}, size={}", target, events.size(), error);
+                    return Flux.fromIterable(events.stream()
+                                    .collect(Collectors.groupingBy(PaymentOutboxEvent::getAttempts))
+                                    .entrySet())
+                            .concatMap(entry -> entry.getKey() >= properties.getMaxAttempts()
+                                    ? repository.markDead(ids(entry.getValue()))
+                                    : repository.markFailed(ids(entry.getValue()), nextAttemptAt(entry.getKey(), error)))
+                            .then();
                 });
     }
 
-    private Mono<Void> dispatchEvent(PaymentOutboxEvent event) {
-        return switch (event.getTarget()) {
-            case ADMIN -> adminClient.publishRaw(event.getPayload());
-            case NOTIFICATION -> notificationClient.publishRaw(event.getPayload());
+    private Mono<Void> dispatchBatch(OutboxTarget target, List<String> payloads) {
+        return switch (target) {
+            case ADMIN -> adminClient.publishRawBatch(payloads);
+            case NOTIFICATION -> notificationClient.publishRawBatch(payloads);
         };
     }
 
+    private boolean isRejected(Throwable error) {
+        return error instanceof WebClientResponseException response && REJECTED_STATUSES.contains(response.getStatusCode().value());
+    }
+
+    private UUID[] ids(Collection<PaymentOutboxEvent> events) {
+        return events.stream()
+                .map(PaymentOutboxEvent::getId)
+                .toArray(UUID[]::new);
+    }
+
+    private Instant nextAttemptAt(int attempts, Throwable error) {
+        Instant backoff = nextAttemptAt(attempts);
+        Instant retryAfter = retryAfter(error);
+        return retryAfter != null && retryAfter.isAfter(backoff) ? retryAfter : backoff;
+    }
+
+    private Instant retryAfter(Throwable error) {
+        if (!(error instanceof WebClientResponseException response)) {
+            return null;
+        }
+        String value = response.getHeaders().getFirst(HttpHeaders.RETRY_AFTER);
+        if (value == null || value.isBlank()) {
+            return null;
+        }
+        try {
+            return Instant.now().plusSeconds(Long.parseLong(value.trim()));
+        } catch (NumberFormatException e) {
+            try {
+                return ZonedDateTime.parse(value.trim(), DateTimeFormatter.RFC_1123_DATE_TIME).toInstant();
+            } catch (DateTimeParseException ignored) {
+                return null;
+            }
+        }
+    }
+
     private Instant nextAttemptAt(int attempts) {
         int exponent = Math.min(attempts - 1, 10);
         long backoff = properties.getInitialBackoffMs() * (1L << Math.max(exponent, 0));
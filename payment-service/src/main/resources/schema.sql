@@ -26,7 +26,17 @@ CREATE TABLE IF NOT EXISTS payment_outbox (
     created_at TIMESTAMPTZ NOT NULL
 );
 
+ALTER TABLE payment_outbox ADD COLUMN IF NOT EXISTS lease_expires_at TIMESTAMPTZ;
+
 CREATE UNIQUE INDEX IF NOT EXISTS ux_payment_outbox_dedupe
     ON payment_outbox(payment_id, event_type, target);
-CREATE INDEX IF NOT EXISTS ix_payment_outbox_status_next
-    ON payment_outbox(status, next_attempt_at);
+DROP INDEX IF EXISTS ix_payment_outbox_status_next;
+CREATE INDEX IF NOT EXISTS ix_payment_outbox_unsent
+    ON payment_outbox(created_at)
+    WHERE status IN ('PENDING', 'PROCESSING', 'FAILED');
+CREATE INDEX IF NOT EXISTS ix_payment_outbox_sent_at
+    ON payment_outbox(sent_at)
+    WHERE status = 'SENT';
+CREATE INDEX IF NOT EXISTS ix_payment_outbox_dead
+    ON payment_outbox(last_attempt_at)
+    WHERE status = 'DEAD';
@@ -1,6 +1,7 @@
 package com.example.reactive.payment;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
 
 import com.example.reactive.payment.model.ApiError;
 import com.example.reactive.payment.model.BankPaymentCallback;
@@ -10,14 +11,30 @@ import com.example.reactive.payment.model.PaymentRequest;
 import com.example.reactive.payment.model.PaymentResponse;
 import com.example.reactive.payment.model.PaymentSessionResponse;
 import com.example.reactive.payment.model.PaymentStatus;
+import com.example.reactive.payment.outbox.OutboxStatus;
+import com.example.reactive.payment.outbox.OutboxTarget;
+import com.example.reactive.payment.outbox.PaymentOutboxEvent;
 import com.example.reactive.payment.outbox.PaymentOutboxRepository;
+import com.example.reactive.payment.outbox.PaymentOutboxRetention;
 import com.example.reactive.payment.repository.PaymentRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.BufferedReader;
 import java.io.IOException;
+import java.io.InputStreamReader;
 import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
 import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
 import okhttp3.mockwebserver.Dispatcher;
 import okhttp3.mockwebserver.MockResponse;
 import okhttp3.mockwebserver.MockWebServer;
@@ -30,12 +47,16 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.reactive.AutoConfigureWebTestClient;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.http.MediaType;
+import org.springframework.r2dbc.core.DatabaseClient;
 import org.springframework.test.context.DynamicPropertyRegistry;
 import org.springframework.test.context.DynamicPropertySource;
 import org.springframework.test.web.reactive.server.WebTestClient;
+import org.springframework.transaction.ReactiveTransactionManager;
+import org.springframework.transaction.reactive.TransactionalOperator;
 import org.testcontainers.containers.PostgreSQLContainer;
 import org.testcontainers.junit.jupiter.Container;
 import org.testcontainers.junit.jupiter.Testcontainers;
+import reactor.core.publisher.Flux;
 import reactor.test.StepVerifier;
 
 @SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
@@ -49,6 +70,9 @@ class PaymentServiceIntegrationTest {
     private static final AtomicReference<OrderStatus> UPDATED_ORDER_STATUS = new AtomicReference<>();
     private static final AtomicInteger ADMIN_EVENTS = new AtomicInteger();
     private static final AtomicInteger NOTIFICATION_EVENTS = new AtomicInteger();
+    private static final AtomicInteger ADMIN_REQUESTS = new AtomicInteger();
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+    private static final Path ARCHIVE_DIR;
 
     @Container
     private static final PostgreSQLContainer<?> POSTGRES = new PostgreSQLContainer<>("postgres:15-alpine")
@@ -84,18 +108,27 @@ class PaymentServiceIntegrationTest {
                                 .setBody("{\"sessionId\":\"session-1\",\"status\":\"PROCESSING\"," +
                                         "\"redirectUrl\":\"https://bank.example/redirect\"}");
                     }
-                    if ("/api/notifications/events".equals(path)) {
-                        NOTIFICATION_EVENTS.incrementAndGet();
+                    if ("/api/notifications/events/batch".equals(path)) {
+                        String body = request.getBody().readUtf8();
+                        if (body.contains("\"rejected\"")) {
+                            return new MockResponse().setResponseCode(400);
+                        }
+                        if (body.contains("\"throttled\"")) {
+                            return new MockResponse().setResponseCode(429).setHeader("Retry-After", "120");
+                        }
+                        NOTIFICATION_EVENTS.addAndGet(batchSize(body));
                         return new MockResponse().setResponseCode(200);
                     }
-                    if ("/api/admin/events".equals(path)) {
-                        ADMIN_EVENTS.incrementAndGet();
+                    if ("/api/admin/events/batch".equals(path)) {
+                        ADMIN_REQUESTS.incrementAndGet();
+                        ADMIN_EVENTS.addAndGet(batchSize(request.getBody().readUtf8()));
                         return new MockResponse().setResponseCode(200);
                     }
                     return new MockResponse().setResponseCode(404);
                 }
             });
             MOCK_WEB_SERVER.start();
+            ARCHIVE_DIR = Files.createTempDirectory("payment-outbox-archive");
         } catch (IOException e) {
             throw new ExceptionInInitializerError(e);
         }
@@ -116,7 +149,8 @@ class PaymentServiceIntegrationTest {
         registry.add("app.orders.base-url", () -> MOCK_WEB_SERVER.url("/").toString());
         registry.add("app.notifications.base-url", () -> MOCK_WEB_SERVER.url("/").toString());
         registry.add("app.admin.base-url", () -> MOCK_WEB_SERVER.url("/").toString());
-        registry.add("app.outbox.poll-interval-ms", () -> "100");
+        registry.add("app.outbox.poll-interval-ms", () -> "60000");
+        registry.add("app.outbox.retention.archive-dir", ARCHIVE_DIR::toString);
         registry.add("app.outbox.batch-size", () -> "50");
         registry.add("app.outbox.initial-backoff-ms", () -> "100");
         registry.add("app.outbox.max-backoff-ms", () -> "1000");
@@ -131,6 +165,15 @@ class PaymentServiceIntegrationTest {
     @Autowired
     private PaymentOutboxRepository outboxRepository;
 
+    @Autowired
+    private ReactiveTransactionManager transactionManager;
+
+    @Autowired
+    private PaymentOutboxRetention outboxRetention;
+
+    @Autowired
+    private DatabaseClient databaseClient;
+
     @AfterAll
     static void tearDown() throws IOException {
         MOCK_WEB_SERVER.shutdown();
@@ -143,6 +186,7 @@ class PaymentServiceIntegrationTest {
         UPDATED_ORDER_STATUS.set(null);
         ADMIN_EVENTS.set(0);
         NOTIFICATION_EVENTS.set(0);
+        ADMIN_REQUESTS.set(0);
     }
 
     @Test
@@ -306,6 +350,332 @@ class PaymentServiceIntegrationTest {
                 });
     }
 
+    @Test
+    void outboxDeliversBurstInBatches() {
+        int events = 30;
+        Flux<Void> inserts = Flux.range(0, events)
+                .concatMap(i -> outboxRepository.insertIgnoreDuplicate(new PaymentOutboxEvent(
+                        UUID.randomUUID(),
+                        UUID.randomUUID(),
+                        ORDER_ID,
+                        OutboxTarget.ADMIN,
+                        "PAYMENT_SUCCESS",
+                        "{\"type\":\"PAYMENT_SUCCESS\",\"orderId\":\"" + ORDER_ID + "\"}",
+                        OutboxStatus.PENDING,
+                        0,
+                        Instant.now(),
+                        null,
+                        null,
+                        Instant.now(),
+                        null
+                )));
+        StepVerifier.create(TransactionalOperator.create(transactionManager).transactional(inserts.then()))
+                .verifyComplete();
+
+        awaitCounter(ADMIN_EVENTS, events);
+        assertThat(ADMIN_EVENTS.get()).isEqualTo(events);
+        assertThat(ADMIN_REQUESTS.get()).isEqualTo(1);
+    }
+
+    @Test
+    void rejectedEventIsDeadLetteredWithoutBlockingItsBatch() {
+        List<PaymentOutboxEvent> events = Flux.range(0, 3)
+                .map(i -> new PaymentOutboxEvent(
+                        UUID.randomUUID(),
+                        UUID.randomUUID(),
+                        ORDER_ID,
+                        OutboxTarget.NOTIFICATION,
+                        "PAYMENT_PAID",
+                        i == 1
+                                ? "{\"type\":\"PAYMENT_PAID\",\"rejected\":true}"
+                                : "{\"userId\":\"user-1\",\"type\":\"PAYMENT_PAID\"}",
+                        OutboxStatus.PENDING,
+                        0,
+                        Instant.now(),
+                        null,
+                        null,
+                        Instant.now(),
+                        null
+                ))
+                .collectList()
+                .block();
+        assertThat(events).isNotNull();
+        StepVerifier.create(TransactionalOperator.create(transactionManager).transactional(
+                        Flux.fromIterable(events).concatMap(outboxRepository::insertIgnoreDuplicate).then()))
+                .verifyComplete();
+
+        awaitCounter(NOTIFICATION_EVENTS, 2);
+        await().atMost(Duration.ofSeconds(5)).untilAsserted(() -> assertThat(databaseClient.sql(
+                                "SELECT id, status FROM payment_outbox WHERE target = 'NOTIFICATION'")
+                        .map((row, metadata) -> Map.entry(row.get("id", UUID.class), row.get("status", String.class)))
+                        .all()
+                        .collectList()
+                        .block())
+                .containsExactlyInAnyOrder(
+                        Map.entry(events.get(0).getId(), "SENT"),
+                        Map.entry(events.get(1).getId(), "DEAD"),
+                        Map.entry(events.get(2).getId(), "SENT")));
+        assertThat(NOTIFICATION_EVENTS.get()).isEqualTo(2);
+    }
+
+    @Test
+    void throttledEventIsRetriedAfterRetryAfter() {
+        UUID id = UUID.randomUUID();
+        StepVerifier.create(outboxRepository.insertIgnoreDuplicate(new PaymentOutboxEvent(
+                        id,
+                        UUID.randomUUID(),
+                        ORDER_ID,
+                        OutboxTarget.NOTIFICATION,
+                        "PAYMENT_PAID",
+                        "{\"type\":\"PAYMENT_PAID\",\"throttled\":true}",
+                        OutboxStatus.PENDING,
+                        0,
+                        Instant.now(),
+                        null,
+                        null,
+                        Instant.now(),
+                        null
+                )))
+                .verifyComplete();
+
+        await().atMost(Duration.ofSeconds(5)).untilAsserted(() -> assertThat(databaseClient.sql(
+                                """
+                                        SELECT status, attempts, next_attempt_at > now() + interval '60 seconds' AS deferred
+                                        FROM payment_outbox
+                                        WHERE id = :id
+                                        """)
+                        .bind("id", id)
+                        .fetch()
+                        .one()
+                        .block())
+                .satisfies(row -> {
+                    assertThat(row.get("status")).isEqualTo("FAILED");
+                    assertThat(((Number) row.get("attempts")).intValue()).isEqualTo(1);
+                    assertThat(row.get("deferred")).isEqualTo(true);
+                }));
+        assertThat(NOTIFICATION_EVENTS.get()).isZero();
+    }
+
+    @Test
+    void insertedEventIsDispatchedOnNotifyWithoutWaitingForPoll() {
+        long start = System.nanoTime();
+        StepVerifier.create(outboxRepository.insertIgnoreDuplicate(new PaymentOutboxEvent(
+                        UUID.randomUUID(),
+                        UUID.randomUUID(),
+                        ORDER_ID,
+                        OutboxTarget.ADMIN,
+                        "PAYMENT_SUCCESS",
+                        "{\"type\":\"PAYMENT_SUCCESS\",\"orderId\":\"" + ORDER_ID + "\"}",
+                        OutboxStatus.PENDING,
+                        0,
+                        Instant.now(),
+                        null,
+                        null,
+                        Instant.now(),
+                        null
+                )))
+                .verifyComplete();
+
+        awaitCounter(ADMIN_EVENTS, 1);
+        assertThat(Duration.ofNanos(System.nanoTime() - start)).isLessThan(Duration.ofSeconds(1));
+    }
+
+    @Test
+    void staleProcessingEventIsReclaimed() {
+        Instant crashedAt = Instant.now().minus(Duration.ofHours(1));
+        PaymentOutboxEvent stuck = new PaymentOutboxEvent(
+                UUID.randomUUID(),
+                UUID.randomUUID(),
+                ORDER_ID,
+                OutboxTarget.ADMIN,
+                "PAYMENT_SUCCESS",
+                "{\"type\":\"PAYMENT_SUCCESS\",\"orderId\":\"" + ORDER_ID + "\"}",
+                OutboxStatus.PROCESSING,
+                1,
+                crashedAt,
+                crashedAt,
+                null,
+                crashedAt,
+                null
+        );
+        StepVerifier.create(outboxRepository.insertIgnoreDuplicate(stuck)).verifyComplete();
+
+        awaitCounter(ADMIN_EVENTS, 1);
+    }
+
+    @Test
+    void expiredLeaseOnFinalAttemptIsDeadLettered() {
+        Instant crashedAt = Instant.now().minus(Duration.ofHours(1));
+        PaymentOutboxEvent exhausted = new PaymentOutboxEvent(
+                UUID.randomUUID(),
+                UUID.randomUUID(),
+                ORDER_ID,
+                OutboxTarget.ADMIN,
+                "PAYMENT_SUCCESS",
+                "{\"type\":\"PAYMENT_SUCCESS\",\"orderId\":\"" + ORDER_ID + "\"}",
+                OutboxStatus.PROCESSING,
+                10,
+                crashedAt,
+                crashedAt,
+                null,
+                crashedAt,
+                crashedAt
+        );
+        StepVerifier.create(outboxRepository.insertIgnoreDuplicate(exhausted)).verifyComplete();
+
+        StepVerifier.create(outboxRepository.claimReadyEvents(10, 10, Instant.now(), Duration.ofMinutes(1)))
+                .verifyComplete();
+        StepVerifier.create(databaseClient.sql("SELECT status FROM payment_outbox WHERE id = :id")
+                        .bind("id", exhausted.getId())
+                        .map((row, metadata) -> row.get("status", String.class))
+                        .one())
+                .expectNext("DEAD")
+                .verifyComplete();
+        assertThat(ADMIN_EVENTS.get()).isZero();
+    }
+
+    @Test
+    void concurrentClaimsNeverOverlap() {
+        Flux<Void> inserts = Flux.range(0, 40)
+                .concatMap(i -> outboxRepository.insertIgnoreDuplicate(new PaymentOutboxEvent(
+                        UUID.randomUUID(),
+                        UUID.randomUUID(),
+                        ORDER_ID,
+                        OutboxTarget.NOTIFICATION,
+                        "PAYMENT_PAID",
+                        "{\"userId\":\"user-1\",\"type\":\"PAYMENT_PAID\"}",
+                        OutboxStatus.PENDING,
+                        0,
+                        Instant.now(),
+                        null,
+                        null,
+                        Instant.now(),
+                        null
+                )));
+        StepVerifier.create(TransactionalOperator.create(transactionManager).transactional(inserts.then()))
+                .verifyComplete();
+
+        List<PaymentOutboxEvent> claimed = Flux.range(0, 4)
+                .flatMap(i -> outboxRepository.claimReadyEvents(10, 10, Instant.now(), Duration.ofMinutes(1)))
+                .collectList()
+                .block();
+
+        assertThat(claimed).isNotNull();
+        assertThat(claimed).extracting(PaymentOutboxEvent::getId).doesNotHaveDuplicates();
+        assertThat(claimed).allSatisfy(event -> {
+            assertThat(event.getStatus()).isEqualTo(OutboxStatus.PROCESSING);
+            assertThat(event.getLeaseExpiresAt()).isAfter(Instant.now());
+        });
+    }
+
+    @Test
+    void retentionDeletesOldSentAndDeadEventsAndArchivesThem() throws IOException {
+        Instant longAgo = Instant.now().minus(Duration.ofDays(30));
+        PaymentOutboxEvent dead = sentEvent(longAgo);
+        dead.setStatus(OutboxStatus.DEAD);
+        dead.setSentAt(null);
+        Flux<Void> inserts = Flux.concat(
+                Flux.range(0, 3).concatMap(i -> outboxRepository.insertIgnoreDuplicate(sentEvent(longAgo))),
+                outboxRepository.insertIgnoreDuplicate(dead),
+                outboxRepository.insertIgnoreDuplicate(sentEvent(Instant.now()))
+        );
+        StepVerifier.create(inserts.then()).verifyComplete();
+
+        StepVerifier.create(outboxRetention.purge())
+                .expectNext(4L)
+                .verifyComplete();
+
+        StepVerifier.create(databaseClient.sql("SELECT count(*) AS remaining FROM payment_outbox")
+                        .map((row, metadata) -> row.get("remaining", Long.class))
+                        .one())
+                .expectNext(1L)
+                .verifyComplete();
+        List<String> archived = new ArrayList<>();
+        try (Stream<Path> files = Files.list(ARCHIVE_DIR)) {
+            for (Path file : files.filter(path -> path.toString().endsWith(".ndjson.gz")).toList()) {
+                try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                        new GZIPInputStream(Files.newInputStream(file)), StandardCharsets.UTF_8))) {
+                    reader.lines().forEach(archived::add);
+                }
+            }
+        }
+        assertThat(archived).hasSize(4)
+                .extracting(line -> OBJECT_MAPPER.readTree(line).get("status").asText())
+                .containsExactlyInAnyOrder("SENT", "SENT", "SENT", "DEAD");
+        assertThat(archiveFiles()).noneMatch(path -> path.toString().endsWith(".part"));
+    }
+
+    @Test
+    void retentionKeepsNoArchiveWhenTheDeleteRollsBack() throws IOException {
+        List<Path> before = archiveFiles();
+        Instant longAgo = Instant.now().minus(Duration.ofDays(30));
+        StepVerifier.create(Flux.range(0, 2)
+                        .concatMap(i -> outboxRepository.insertIgnoreDuplicate(sentEvent(longAgo)))
+                        .then())
+                .verifyComplete();
+        StepVerifier.create(databaseClient.sql("""
+                                CREATE OR REPLACE FUNCTION reject_outbox_delete() RETURNS trigger AS $$
+                                BEGIN
+                                    RAISE EXCEPTION 'delete rejected at commit';
+                                END
+                                $$ LANGUAGE plpgsql
+                                """).then()
+                        .then(databaseClient.sql("""
+                                CREATE CONSTRAINT TRIGGER reject_outbox_delete
+                                    AFTER DELETE ON payment_outbox
+                                    DEFERRABLE INITIALLY DEFERRED
+                                    FOR EACH ROW EXECUTE FUNCTION reject_outbox_delete()
+                                """).then()))
+                .verifyComplete();
+        try {
+            StepVerifier.create(outboxRetention.purge())
+                    .expectNext(0L)
+                    .verifyComplete();
+        } finally {
+            StepVerifier.create(databaseClient.sql("DROP TRIGGER reject_outbox_delete ON payment_outbox").then())
+                    .verifyComplete();
+        }
+
+        StepVerifier.create(databaseClient.sql("SELECT count(*) AS remaining FROM payment_outbox")
+                        .map((row, metadata) -> row.get("remaining", Long.class))
+                        .one())
+                .expectNext(2L)
+                .verifyComplete();
+        assertThat(archiveFiles()).isEqualTo(before);
+    }
+
+    private static List<Path> archiveFiles() throws IOException {
+        try (Stream<Path> files = Files.list(ARCHIVE_DIR)) {
+            return files.sorted().toList();
+        }
+    }
+
+    private static PaymentOutboxEvent sentEvent(Instant sentAt) {
+        return new PaymentOutboxEvent(
+                UUID.randomUUID(),
+                UUID.randomUUID(),
+                ORDER_ID,
+                OutboxTarget.ADMIN,
+                "PAYMENT_SUCCESS",
+                "{\"type\":\"PAYMENT_SUCCESS\",\"orderId\":\"" + ORDER_ID + "\"}",
+                OutboxStatus.SENT,
+                1,
+                sentAt,
+                sentAt,
+                sentAt,
+                sentAt,
+                null
+        );
+    }
+
+    private static int batchSize(String body) {
+        try {
+            return OBJECT_MAPPER.readTree(body).size();
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
     private static String orderJson() {
         return String.format(
                 "{\"id\":\"%s\",\"userId\":\"user-1\",\"status\":\"%s\","
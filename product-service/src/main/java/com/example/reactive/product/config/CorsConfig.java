@@ -25,6 +25,7 @@ public class CorsConfig {
         config.setAllowedOrigins(allowAll ? List.of("*") : allowedOrigins);
         config.addAllowedHeader("*");
         config.addAllowedMethod("*");
+        config.addExposedHeader("X-Next-Cursor");
 
         UrlBasedCorsConfigurationSource source = new UrlBasedCorsConfigurationSource();
         source.registerCorsConfiguration("/**", config);
@@ -1,7 +1,9 @@
 package com.example.reactive.product.controller;
 
 import com.example.reactive.product.model.ProductEvent;
+import com.example.reactive.product.model.ProductPage;
 import com.example.reactive.product.model.ProductResponse;
+import com.example.reactive.product.model.ProductSort;
 import com.example.reactive.product.service.ProductService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
@@ -11,6 +13,7 @@ import java.util.UUID;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.MediaType;
 import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.http.server.reactive.ServerHttpResponse;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
@@ -24,18 +27,30 @@ import reactor.core.publisher.Mono;
 @Tag(name = "Catalog")
 @RequiredArgsConstructor
 public class ProductController {
+    public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
     private final ProductService productService;
 
     @GetMapping
-    @Operation(summary = "List products with reactive filters")
+    @Operation(summary = "List products with reactive filters (next page cursor in X-Next-Cursor header)")
     public Flux<ProductResponse> list(
             @RequestParam(required = false) String query,
             @RequestParam(required = false) String category,
             @RequestParam(required = false) BigDecimal minPrice,
             @RequestParam(required = false) BigDecimal maxPrice,
+            @Parameter(description = "Sort order; RELEVANCE ranks by name similarity to query")
+            @RequestParam(defaultValue = "UPDATED") ProductSort sort,
             @RequestParam(defaultValue = "0") int page,
-            @RequestParam(defaultValue = "20") int size) {
-        return productService.search(query, category, minPrice, maxPrice, page, size);
+            @RequestParam(defaultValue = "20") int size,
+            @Parameter(description = "Page cursor") @RequestParam(required = false) String cursor,
+            ServerHttpResponse response) {
+        return productService.search(query, category, minPrice, maxPrice, sort, page, size, cursor)
+                .doOnNext(result -> {
+                    if (result.nextCursor() != null) {
+                        response.getHeaders().set(NEXT_CURSOR_HEADER, result.nextCursor());
+                    }
+                })
+                .flatMapIterable(ProductPage::items);
     }
 
     @GetMapping("/{id}")
@@ -0,0 +1,9 @@
+package com.example.reactive.product.model;
+
+import java.util.List;
+
+public record ProductPage(
+        List<ProductResponse> items,
+        String nextCursor
+) {
+}
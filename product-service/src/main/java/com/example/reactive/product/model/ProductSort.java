@@ -0,0 +1,6 @@
+package com.example.reactive.product.model;
+
+public enum ProductSort {
+    UPDATED,
+    RELEVANCE
+}
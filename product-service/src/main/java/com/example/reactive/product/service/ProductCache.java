@@ -0,0 +1,42 @@
+package com.example.reactive.product.service;
+
+import com.example.reactive.product.model.ProductResponse;
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import java.time.Duration;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+@Component
+public class ProductCache {
+    private final AsyncCache<UUID, ProductResponse> cache;
+
+    public ProductCache(MeterRegistry meterRegistry,
+                        @Value("${app.products.cache.max-entries:10000}") long maxEntries,
+                        @Value("${app.products.cache.ttl-ms:60000}") long ttlMs) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxEntries)
+                .expireAfterWrite(Duration.ofMillis(ttlMs))
+                .recordStats()
+                .buildAsync();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "products");
+    }
+
+    public Mono<ProductResponse> get(UUID id, Function<UUID, Mono<ProductResponse>> loader) {
+        return Mono.fromFuture(() -> cache.get(id, (key, executor) -> loader.apply(key).toFuture()), true);
+    }
+
+    public void put(ProductResponse product) {
+        cache.put(product.id(), CompletableFuture.completedFuture(product));
+    }
+
+    public void invalidate(UUID id) {
+        cache.synchronous().invalidate(id);
+    }
+}
@@ -0,0 +1,248 @@
+package com.example.reactive.product.service;
+
+import com.example.reactive.product.model.ProductCursor;
+import com.example.reactive.product.model.ProductPage;
+import com.example.reactive.product.model.ProductResponse;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.NavigableSet;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.UUID;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+@Component
+@Slf4j
+public class ProductSearchIndex {
+    private static final int GRAM = 3;
+    private static final double RELEVANCE_THRESHOLD = 0.6;
+    private static final Comparator<ProductResponse> NEWEST_FIRST = Comparator
+            .comparing(ProductResponse::updatedAt, Comparator.reverseOrder())
+            .thenComparing(ProductResponse::id, Comparator.reverseOrder());
+
+    private final boolean enabled;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<UUID, ProductResponse> products = new HashMap<>();
+    private final Map<String, Set<UUID>> nameGrams = new HashMap<>();
+    private final Map<String, Set<UUID>> categories = new HashMap<>();
+    private final NavigableMap<BigDecimal, Set<UUID>> prices = new TreeMap<>();
+    private final NavigableSet<ProductResponse> newestFirst = new TreeSet<>(NEWEST_FIRST);
+    private final Set<UUID> deletedBeforeReady = new HashSet<>();
+    private volatile boolean ready;
+
+    public ProductSearchIndex(@Value("${app.products.search.in-memory:false}") boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    public void rebuild(Collection<ProductResponse> snapshot) {
+        lock.writeLock().lock();
+        try {
+            for (ProductResponse product : snapshot) {
+                ProductResponse current = products.get(product.id());
+                boolean newer = current != null && current.updatedAt().isAfter(product.updatedAt());
+                if (!newer && !deletedBeforeReady.contains(product.id())) {
+                    put(product);
+                }
+            }
+            deletedBeforeReady.clear();
+            ready = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.info("Product search index built: products={}, grams={}", products.size(), nameGrams.size());
+    }
+
+    public void upsert(ProductResponse product) {
+        if (!enabled) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            put(product);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(UUID id) {
+        if (!enabled) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            delete(id);
+            if (!ready) {
+                deletedBeforeReady.add(id);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public ProductPage search(String query, String category, BigDecimal minPrice, BigDecimal maxPrice,
+                              boolean byRelevance, ProductCursor after, long offset, int size) {
+        if (size < 1 || offset < 0) {
+            throw new IllegalArgumentException("size must be positive and offset non-negative");
+        }
+        lock.readLock().lock();
+        try {
+            Stream<ProductResponse> matches = candidates(query, category, minPrice, maxPrice, byRelevance, after)
+                    .filter(product -> query == null || matchesQuery(product, query, byRelevance))
+                    .filter(product -> category == null || category.equals(product.category()))
+                    .filter(product -> minPrice == null || product.price().compareTo(minPrice) >= 0)
+                    .filter(product -> maxPrice == null || product.price().compareTo(maxPrice) <= 0);
+            if (byRelevance) {
+                Set<String> queryGrams = grams(query);
+                matches = matches.sorted(Comparator
+                        .comparingDouble((ProductResponse product) -> -similarity(queryGrams, product.name()))
+                        .thenComparing(NEWEST_FIRST));
+                return new ProductPage(matches.skip(offset).limit(size).toList(), null);
+            }
+            if (after != null) {
+                ProductResponse probe = probe(after);
+                matches = matches.filter(product -> NEWEST_FIRST.compare(product, probe) > 0);
+            }
+            List<ProductResponse> page = matches.skip(offset).limit(size + 1L).toList();
+            if (page.size() <= size) {
+                return new ProductPage(page, null);
+            }
+            List<ProductResponse> items = page.subList(0, size);
+            return new ProductPage(items, ProductCursor.of(items.get(items.size() - 1)).encode());
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private Stream<ProductResponse> candidates(String query, String category, BigDecimal minPrice,
+                                               BigDecimal maxPrice, boolean byRelevance, ProductCursor after) {
+        List<Set<UUID>> postings = new ArrayList<>();
+        if (query != null && query.length() >= GRAM) {
+            if (byRelevance) {
+                Set<UUID> sharingAnyGram = new HashSet<>();
+                grams(query).forEach(gram -> sharingAnyGram.addAll(nameGrams.getOrDefault(gram, Set.of())));
+                postings.add(sharingAnyGram);
+            } else {
+                grams(query).forEach(gram -> postings.add(nameGrams.getOrDefault(gram, Set.of())));
+            }
+        }
+        if (category != null) {
+            postings.add(categories.getOrDefault(category, Set.of()));
+        }
+        if (postings.isEmpty() && (minPrice != null || maxPrice != null)) {
+            Set<UUID> inRange = new HashSet<>();
+            priceRange(minPrice, maxPrice).values().forEach(inRange::addAll);
+            postings.add(inRange);
+        }
+        if (postings.isEmpty()) {
+            return after == null
+                    ? newestFirst.stream()
+                    : newestFirst.tailSet(probe(after), false).stream();
+        }
+        postings.sort(Comparator.comparingInt(Set::size));
+        Set<UUID> smallest = postings.get(0);
+        List<Set<UUID>> rest = postings.subList(1, postings.size());
+        return smallest.stream()
+                .filter(id -> rest.stream().allMatch(posting -> posting.contains(id)))
+                .map(products::get)
+                .sorted(NEWEST_FIRST);
+    }
+
+    private NavigableMap<BigDecimal, Set<UUID>> priceRange(BigDecimal minPrice, BigDecimal maxPrice) {
+        if (minPrice != null && maxPrice != null) {
+            return minPrice.compareTo(maxPrice) > 0
+                    ? new TreeMap<>()
+                    : prices.subMap(minPrice, true, maxPrice, true);
+        }
+        return minPrice != null ? prices.tailMap(minPrice, true) : prices.headMap(maxPrice, true);
+    }
+
+    private boolean matchesQuery(ProductResponse product, String query, boolean byRelevance) {
+        if (!byRelevance) {
+            return product.name().contains(query);
+        }
+        return normalize(product.name()).contains(normalize(query))
+                || similarity(grams(query), product.name()) >= RELEVANCE_THRESHOLD;
+    }
+
+    private double similarity(Set<String> queryGrams, String name) {
+        if (queryGrams.isEmpty()) {
+            return 0;
+        }
+        Set<String> nameGramSet = grams(name);
+        long shared = queryGrams.stream().filter(nameGramSet::contains).count();
+        return (double) shared / queryGrams.size();
+    }
+
+    private void put(ProductResponse product) {
+        delete(product.id());
+        products.put(product.id(), product);
+        newestFirst.add(product);
+        for (String gram : grams(product.name())) {
+            nameGrams.computeIfAbsent(gram, ignored -> new HashSet<>()).add(product.id());
+        }
+        categories.computeIfAbsent(product.category(), ignored -> new HashSet<>()).add(product.id());
+        prices.computeIfAbsent(product.price(), ignored -> new HashSet<>()).add(product.id());
+    }
+
+    private void delete(UUID id) {
+        ProductResponse existing = products.remove(id);
+        if (existing == null) {
+            return;
+        }
+        newestFirst.remove(existing);
+        for (String gram : grams(existing.name())) {
+            removePosting(nameGrams, gram, id);
+        }
+        removePosting(categories, existing.category(), id);
+        removePosting(prices, existing.price(), id);
+    }
+
+    private static <K> void removePosting(Map<K, Set<UUID>> postings, K key, UUID id) {
+        Set<UUID> ids = postings.get(key);
+        if (ids != null) {
+            ids.remove(id);
+            if (ids.isEmpty()) {
+                postings.remove(key);
+            }
+        }
+    }
+
+    private static Set<String> grams(String text) {
+        String normalized = normalize(text);
+        Set<String> grams = new HashSet<>();
+        for (int i = 0; i + GRAM <= normalized.length(); i++) {
+            grams.add(normalized.substring(i, i + GRAM));
+        }
+        return grams;
+    }
+
+    private static String normalize(String text) {
+        return text == null ? "" : text.toLowerCase(Locale.ROOT);
+    }
+
+    private static ProductResponse probe(ProductCursor cursor) {
+        return new ProductResponse(cursor.id(), null, null, null, null, null, null, null, cursor.updatedAt());
+    }
+}
@@ -1,15 +1,25 @@
 package com.example.reactive.product.service;
 
 import com.example.reactive.product.model.Product;
+import com.example.reactive.product.model.ProductCursor;
 import com.example.reactive.product.model.ProductEvent;
+import com.example.reactive.product.model.ProductPage;
 import com.example.reactive.product.model.ProductRequest;
 import com.example.reactive.product.model.ProductResponse;
+import com.example.reactive.product.model.ProductSort;
 import com.example.reactive.product.repository.ProductRepository;
+import com.example.reactive.sse.SseFanOut;
 import java.math.BigDecimal;
 import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
 import org.springframework.data.domain.Sort;
 import org.springframework.data.r2dbc.core.R2dbcEntityTemplate;
 import org.springframework.data.relational.core.query.Criteria;
@@ -28,16 +38,53 @@ import reactor.core.publisher.Sinks;
 public class ProductService {
     private final ProductRepository repository;
     private final R2dbcEntityTemplate template;
+    private final ProductSearchIndex searchIndex;
+    private final ProductCache productCache;
+    private final SseFanOut sseFanOut;
     private final Sinks.Many<ProductEvent> productSink = Sinks.many().multicast().onBackpressureBuffer();
 
-    public Flux<ProductResponse> search(String query, String category, BigDecimal minPrice, BigDecimal maxPrice,
-                                        int page, int size) {
+    public Mono<ProductPage> search(String query, String category, BigDecimal minPrice, BigDecimal maxPrice,
+                                    ProductSort sort, int page, int size, String cursor) {
+        if (size < 1) {
+            return Mono.error(new ResponseStatusException(HttpStatus.BAD_REQUEST, "Page size must be positive"));
+        }
+        if (page < 0) {
+            return Mono.error(new ResponseStatusException(HttpStatus.BAD_REQUEST, "Page must not be negative"));
+        }
+        String normalizedQuery = query == null || query.isBlank() ? null : query.trim();
+        String normalizedCategory = category == null || category.isBlank() ? null : category.trim();
+        boolean byRelevance = sort == ProductSort.RELEVANCE && normalizedQuery != null;
+        boolean hasCursor = cursor != null && !cursor.isBlank();
+        if (byRelevance && hasCursor) {
+            return Mono.error(new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "Cursor is not supported for relevance sort"));
+        }
+        ProductCursor after;
+        try {
+            after = hasCursor ? ProductCursor.decode(cursor) : null;
+        } catch (IllegalArgumentException ex) {
+            return Mono.error(new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid cursor"));
+        }
+        long offset = hasCursor ? 0 : (long) page * size;
+
+        if (searchIndex.isReady()) {
+            return Mono.just(searchIndex.search(normalizedQuery, normalizedCategory, minPrice, maxPrice,
+                    byRelevance, after, offset, size));
+        }
+        if (byRelevance) {
+            return searchByRelevance(normalizedQuery, normalizedCategory, minPrice, maxPrice, offset, size);
+        }
+        return search(normalizedQuery, normalizedCategory, minPrice, maxPrice, after, offset, size);
+    }
+
+    private Mono<ProductPage> search(String query, String category, BigDecimal minPrice, BigDecimal maxPrice,
+                                     ProductCursor after, long offset, int size) {
         Criteria criteria = Criteria.empty();
-        if (query != null && !query.isBlank()) {
-            criteria = criteria.and("name").like("%" + query.trim() + "%");
+        if (query != null) {
+            criteria = criteria.and("name").like("%" + query + "%");
         }
-        if (category != null && !category.isBlank()) {
-            criteria = criteria.and("category").is(category.trim());
+        if (category != null) {
+            criteria = criteria.and("category").is(category);
         }
         if (minPrice != null) {
             criteria = criteria.and("price").greaterThanOrEquals(minPrice);
@@ -45,19 +92,84 @@ public class ProductService {
         if (maxPrice != null) {
             criteria = criteria.and("price").lessThanOrEquals(maxPrice);
         }
+        if (after != null) {
+            criteria = criteria.and("updatedAt").lessThanOrEquals(after.updatedAt())
+                    .and(Criteria.where("updatedAt").lessThan(after.updatedAt())
+                            .or("id").lessThan(after.id()));
+        }
 
         Query filterQuery = Query.query(criteria)
-                .limit(size)
-                .offset((long) page * size)
-                .sort(Sort.by(Sort.Order.desc("updatedAt")));
+                .limit(size + 1)
+                .offset(offset)
+                .sort(Sort.by(Sort.Order.desc("updatedAt"), Sort.Order.desc("id")));
 
         return template.select(filterQuery, Product.class)
-                .map(this::toResponse);
+                .map(this::toResponse)
+                .collectList()
+                .map(products -> toPage(products, size));
     }
 
-    public Mono<ProductResponse> getById(UUID id) {
-        return repository.findById(id)
+    private Mono<ProductPage> searchByRelevance(String query, String category, BigDecimal minPrice,
+                                                BigDecimal maxPrice, long offset, int size) {
+        StringBuilder sql = new StringBuilder("""
+                SELECT *
+                FROM products
+                WHERE (:query <% name OR name ILIKE :pattern)
+                """);
+        Map<String, Object> bindings = new HashMap<>();
+        bindings.put("query", query);
+        bindings.put("pattern", "%" + query + "%");
+        if (category != null) {
+            sql.append("  AND category = :category\n");
+            bindings.put("category", category);
+        }
+        if (minPrice != null) {
+            sql.append("  AND price >= :minPrice\n");
+            bindings.put("minPrice", minPrice);
+        }
+        if (maxPrice != null) {
+            sql.append("  AND price <= :maxPrice\n");
+            bindings.put("maxPrice", maxPrice);
+        }
+        sql.append("""
+                ORDER BY word_similarity(:query, name) DESC, updated_at DESC, id DESC
+                LIMIT :limit
+                OFFSET :offset
+                """);
+        bindings.put("limit", size);
+        bindings.put("offset", offset);
+
+        return template.getDatabaseClient().sql(sql.toString())
+                .bindValues(bindings)
+                .map((row, metadata) -> template.getConverter().read(Product.class, row, metadata))
+                .all()
                 .map(this::toResponse)
+                .collectList()
+                .map(products -> new ProductPage(products, null));
+    }
+
+    private ProductPage toPage(List<ProductResponse> products, int size) {
+        if (products.size() <= size) {
+            return new ProductPage(products, null);
+        }
+        List<ProductResponse> items = products.subList(0, size);
+        return new ProductPage(items, ProductCursor.of(items.get(items.size() - 1)).encode());
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void buildSearchIndex() {
+        if (!searchIndex.isEnabled()) {
+            return;
+        }
+        repository.findAll()
+                .map(this::toResponse)
+                .collectList()
+                .subscribe(searchIndex::rebuild,
+                        error -> log.error("Failed to build product search index, using database search", error));
+    }
+
+    public Mono<ProductResponse> getById(UUID id) {
+        return productCache.get(id, key -> repository.findById(key).map(this::toResponse))
                 .switchIfEmpty(Mono.error(new ResponseStatusException(HttpStatus.NOT_FOUND, "Product not found")));
     }
 
@@ -71,7 +183,7 @@ public class ProductService {
                 request.currency(),
                 request.stock(),
                 request.imageUrl(),
-                Instant.now()
+                Instant.now().truncatedTo(ChronoUnit.MICROS)
         );
 
         return repository.save(product)
@@ -94,7 +206,7 @@ public class ProductService {
                     existing.setCurrency(request.currency());
                     existing.setStock(request.stock());
                     existing.setImageUrl(request.imageUrl());
-                    existing.setUpdatedAt(Instant.now());
+                    existing.setUpdatedAt(Instant.now().truncatedTo(ChronoUnit.MICROS));
                     return repository.save(existing);
                 })
                 .map(this::toResponse)
@@ -123,14 +235,21 @@ public class ProductService {
         ServerSentEvent<ProductEvent> connected = ServerSentEvent.<ProductEvent>builder()
                 .comment("connected")
                 .build();
-        return Flux.concat(Mono.just(connected), productSink.asFlux()
+        return sseFanOut.connect("products", Flux.concat(Mono.just(connected), productSink.asFlux()
                 .map(event -> ServerSentEvent.builder(event)
                         .event(event.type())
                         .id(event.product().id().toString())
-                        .build()));
+                        .build())));
     }
 
     private void publishEvent(String type, ProductResponse response) {
+        if ("PRODUCT_DELETED".equals(type)) {
+            productCache.invalidate(response.id());
+            searchIndex.remove(response.id());
+        } else {
+            productCache.put(response);
+            searchIndex.upsert(response);
+        }
         productSink.tryEmitNext(new ProductEvent(type, response, Instant.now()));
     }
 
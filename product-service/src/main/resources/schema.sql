@@ -1,3 +1,5 @@
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+
 CREATE TABLE IF NOT EXISTS products (
     id UUID PRIMARY KEY,
     name VARCHAR(200) NOT NULL,
@@ -9,3 +11,7 @@ CREATE TABLE IF NOT EXISTS products (
     image_url TEXT,
     updated_at TIMESTAMPTZ NOT NULL
 );
+
+CREATE INDEX IF NOT EXISTS idx_products_updated_at_id ON products(updated_at DESC, id DESC);
+CREATE INDEX IF NOT EXISTS idx_products_category_updated_at_id ON products(category, updated_at DESC, id DESC);
+CREATE INDEX IF NOT EXISTS idx_products_name_trgm ON products USING gin (name gin_trgm_ops);
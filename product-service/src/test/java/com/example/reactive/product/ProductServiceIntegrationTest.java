@@ -7,7 +7,10 @@ import com.example.reactive.product.model.ProductEvent;
 import com.example.reactive.product.model.ProductRequest;
 import com.example.reactive.product.model.ProductResponse;
 import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 import java.util.UUID;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -18,6 +21,7 @@ import org.springframework.http.MediaType;
 import org.springframework.http.codec.ServerSentEvent;
 import org.springframework.test.context.DynamicPropertyRegistry;
 import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.reactive.server.EntityExchangeResult;
 import org.springframework.test.web.reactive.server.WebTestClient;
 import org.testcontainers.containers.PostgreSQLContainer;
 import org.testcontainers.junit.jupiter.Container;
@@ -67,6 +71,78 @@ class ProductServiceIntegrationTest {
                 });
     }
 
+    @Test
+    void listProductsPagesWithCursor() {
+        List<ProductResponse> all = webTestClient.get()
+                .uri(uriBuilder -> uriBuilder.path("/api/products")
+                        .queryParam("size", 100)
+                        .build())
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().doesNotExist("X-Next-Cursor")
+                .expectBodyList(ProductResponse.class)
+                .returnResult()
+                .getResponseBody();
+
+        assertThat(all).hasSizeGreaterThan(3);
+
+        List<UUID> paged = new ArrayList<>();
+        String cursor = null;
+        do {
+            String current = cursor;
+            EntityExchangeResult<List<ProductResponse>> result = webTestClient.get()
+                    .uri(uriBuilder -> uriBuilder.path("/api/products")
+                            .queryParam("size", 3)
+                            .queryParamIfPresent("cursor", Optional.ofNullable(current))
+                            .build())
+                    .exchange()
+                    .expectStatus().isOk()
+                    .expectBodyList(ProductResponse.class)
+                    .returnResult();
+            result.getResponseBody().forEach(product -> paged.add(product.id()));
+            cursor = result.getResponseHeaders().getFirst("X-Next-Cursor");
+        } while (cursor != null);
+
+        assertThat(paged).containsExactlyElementsOf(all.stream().map(ProductResponse::id).toList());
+
+        webTestClient.get()
+                .uri(uriBuilder -> uriBuilder.path("/api/products")
+                        .queryParam("cursor", "not-a-cursor")
+                        .build())
+                .exchange()
+                .expectStatus().isBadRequest();
+    }
+
+    @Test
+    void nonPositivePageSizeIsRejected() {
+        for (int size : new int[] {0, -1}) {
+            webTestClient.get()
+                    .uri(uriBuilder -> uriBuilder.path("/api/products")
+                            .queryParam("size", size)
+                            .build())
+                    .exchange()
+                    .expectStatus().isBadRequest()
+                    .expectBody(ApiError.class)
+                    .value(error -> assertThat(error.message()).isEqualTo("Page size must be positive"));
+        }
+    }
+
+    @Test
+    void searchByRelevanceRanksClosestNameFirst() {
+        webTestClient.get()
+                .uri(uriBuilder -> uriBuilder.path("/api/products")
+                        .queryParam("query", "aurora")
+                        .queryParam("sort", "RELEVANCE")
+                        .build())
+                .exchange()
+                .expectStatus().isOk()
+                .expectBodyList(ProductResponse.class)
+                .value(list -> {
+                    assertThat(list).isNotEmpty();
+                    assertThat(list.get(0).id()).isEqualTo(SEEDED_ID);
+                });
+    }
+
     @Test
     void getProductByIdReturnsSeededItem() {
         webTestClient.get()
@@ -104,6 +180,18 @@ class ProductServiceIntegrationTest {
                 .getResponseBody();
 
         assertThat(created).isNotNull();
+        double hitsBefore = cacheGets("hit");
+        double missesBefore = cacheGets("miss");
+
+        webTestClient.get()
+                .uri("/api/products/{id}", created.id())
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(ProductResponse.class)
+                .value(cached -> assertThat(cached.name()).isEqualTo("Desk Lamp"));
+
+        assertThat(cacheGets("hit")).isEqualTo(hitsBefore + 1);
+        assertThat(cacheGets("miss")).isEqualTo(missesBefore);
 
         ProductRequest update = new ProductRequest(
                 "Desk Lamp Pro",
@@ -128,17 +216,44 @@ class ProductServiceIntegrationTest {
                     assertThat(updated.stock()).isEqualTo(5);
                 });
 
+        webTestClient.get()
+                .uri("/api/products/{id}", created.id())
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(ProductResponse.class)
+                .value(cached -> assertThat(cached.name()).isEqualTo("Desk Lamp Pro"));
+
         webTestClient.delete()
                 .uri("/api/admin/products/{id}", created.id())
                 .exchange()
                 .expectStatus().isOk();
 
+        double missesBeforeDeletedRead = cacheGets("miss");
+
         webTestClient.get()
                 .uri("/api/products/{id}", created.id())
                 .exchange()
                 .expectStatus().isNotFound()
                 .expectBody(ApiError.class)
                 .value(error -> assertThat(error.message()).isEqualTo("Product not found"));
+
+        assertThat(cacheGets("miss")).isEqualTo(missesBeforeDeletedRead + 1);
+    }
+
+    private double cacheGets(String result) {
+        Map<String, Object> metric = webTestClient.get()
+                .uri(uriBuilder -> uriBuilder.path("/actuator/metrics/cache.gets")
+                        .queryParam("tag", "cache:products")
+                        .queryParam("tag", "result:" + result)
+                        .build())
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(new ParameterizedTypeReference<Map<String, Object>>() {})
+                .returnResult()
+                .getResponseBody();
+        assertThat(metric).isNotNull();
+        List<?> measurements = (List<?>) metric.get("measurements");
+        return ((Number) ((Map<?, ?>) measurements.get(0)).get("value")).doubleValue();
     }
 
     @Test
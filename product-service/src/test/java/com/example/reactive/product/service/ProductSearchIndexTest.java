@@ -0,0 +1,99 @@
+package com.example.reactive.product.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.example.reactive.product.model.ProductCursor;
+import com.example.reactive.product.model.ProductPage;
+import com.example.reactive.product.model.ProductResponse;
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class ProductSearchIndexTest {
+    private static final Instant NOW = Instant.parse("2024-05-01T10:00:00Z");
+
+    private final ProductSearchIndex index = new ProductSearchIndex(true);
+    private final List<ProductResponse> catalog = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        catalog.add(product("Desk Lamp Aurora", "Lighting", "79.00", 1));
+        catalog.add(product("Floor Lamp", "Lighting", "129.00", 2));
+        catalog.add(product("Nimbus Chair", "Furniture", "249.00", 3));
+        catalog.add(product("Echo Speaker", "Audio", "129.00", 4));
+        catalog.add(product("Atlas Backpack", "Accessories", "99.00", 5));
+        index.rebuild(catalog);
+    }
+
+    @Test
+    void filtersBySubstringCategoryAndPrice() {
+        assertThat(names(index.search("Lamp", null, null, null, false, null, 0, 10)))
+                .containsExactly("Desk Lamp Aurora", "Floor Lamp");
+        assertThat(names(index.search("lamp", null, null, null, false, null, 0, 10))).isEmpty();
+        assertThat(names(index.search(null, "Lighting", new BigDecimal("100"), null, false, null, 0, 10)))
+                .containsExactly("Floor Lamp");
+        assertThat(names(index.search(null, null, new BigDecimal("99"), new BigDecimal("129"), false, null, 0, 10)))
+                .containsExactly("Floor Lamp", "Echo Speaker", "Atlas Backpack");
+    }
+
+    @Test
+    void pagesWithCursorNewestFirst() {
+        ProductPage first = index.search(null, null, null, null, false, null, 0, 2);
+        assertThat(names(first)).containsExactly("Desk Lamp Aurora", "Floor Lamp");
+        assertThat(first.nextCursor()).isNotNull();
+
+        List<String> all = new ArrayList<>(names(first));
+        ProductPage page = first;
+        while (page.nextCursor() != null) {
+            page = index.search(null, null, null, null, false,
+                    ProductCursor.decode(page.nextCursor()), 0, 2);
+            all.addAll(names(page));
+        }
+        assertThat(all).containsExactly(
+                "Desk Lamp Aurora", "Floor Lamp", "Nimbus Chair", "Echo Speaker", "Atlas Backpack");
+    }
+
+    @Test
+    void rejectsNonPositivePageSize() {
+        assertThatThrownBy(() -> index.search(null, null, null, null, false, null, 0, 0))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> index.search("lamp", null, null, null, true, null, 0, -1))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void ranksByRelevanceAndToleratesTypos() {
+        assertThat(names(index.search("aurora", null, null, null, true, null, 0, 10)))
+                .containsExactly("Desk Lamp Aurora");
+        assertThat(names(index.search("nimbsu chair", null, null, null, true, null, 0, 10)))
+                .containsExactly("Nimbus Chair");
+    }
+
+    @Test
+    void appliesIncrementalUpdatesAndDeletes() {
+        ProductResponse renamed = new ProductResponse(catalog.get(1).id(), "Floor Light", null, "Lighting",
+                new BigDecimal("139.00"), "USD", 1, null, NOW.plusSeconds(60));
+        index.upsert(renamed);
+        index.remove(catalog.get(0).id());
+
+        assertThat(names(index.search("Lamp", null, null, null, false, null, 0, 10))).isEmpty();
+        assertThat(names(index.search(null, "Lighting", null, null, false, null, 0, 10)))
+                .containsExactly("Floor Light");
+        assertThat(names(index.search(null, null, new BigDecimal("130"), null, false, null, 0, 10)))
+                .containsExactly("Floor Light", "Nimbus Chair");
+    }
+
+    private static List<String> names(ProductPage page) {
+        return page.items().stream().map(ProductResponse::name).toList();
+    }
+
+    private static ProductResponse product(String name, String category, String price, int ageMinutes) {
+        return new ProductResponse(UUID.randomUUID(), name, null, category, new BigDecimal(price), "USD", 1, null,
+                NOW.minusSeconds(ageMinutes * 60L));
+    }
+}
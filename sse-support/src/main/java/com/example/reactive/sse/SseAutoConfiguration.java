@@ -0,0 +1,17 @@
+package com.example.reactive.sse;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.autoconfigure.AutoConfiguration;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+
+@AutoConfiguration
+@EnableConfigurationProperties(SseProperties.class)
+public class SseAutoConfiguration {
+    @Bean
+    @ConditionalOnMissingBean
+    public SseFanOut sseFanOut(SseProperties properties, MeterRegistry meterRegistry) {
+        return new SseFanOut(properties, meterRegistry);
+    }
+}
@@ -0,0 +1,62 @@
+package com.example.reactive.sse;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.Duration;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.codec.ServerSentEvent;
+import reactor.core.Exceptions;
+import reactor.core.publisher.BufferOverflowStrategy;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+@Slf4j
+public class SseFanOut {
+    private final SseProperties properties;
+    private final MeterRegistry meterRegistry;
+
+    public SseFanOut(SseProperties properties, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.meterRegistry = meterRegistry;
+    }
+
+    public <T> Flux<ServerSentEvent<T>> connect(String stream, Flux<ServerSentEvent<T>> frames) {
+        SseProperties.OverflowPolicy policy = properties.getOverflowPolicy();
+        int bufferSize = Math.max(1, properties.getBufferSize());
+        Duration heartbeat = Duration.ofMillis(properties.getHeartbeatMs());
+        Counter dropped = Counter.builder("sse.frames.dropped")
+                .description("SSE frames dropped because the subscriber read too slowly")
+                .tag("stream", stream)
+                .tag("policy", policy.name())
+                .register(meterRegistry);
+        Counter disconnected = Counter.builder("sse.slow.disconnects")
+                .description("SSE subscribers disconnected because their buffer overflowed")
+                .tag("stream", stream)
+                .register(meterRegistry);
+        return Flux.defer(() -> {
+            Flux<ServerSentEvent<T>> bounded = switch (policy) {
+                case DROP_OLDEST -> frames.onBackpressureBuffer(bufferSize, frame -> dropped.increment(),
+                        BufferOverflowStrategy.DROP_OLDEST);
+                case CONFLATE_LATEST -> frames.onBackpressureBuffer(1, frame -> dropped.increment(),
+                        BufferOverflowStrategy.DROP_OLDEST);
+                case DISCONNECT -> frames.onBackpressureBuffer(bufferSize, frame -> dropped.increment(),
+                                BufferOverflowStrategy.ERROR)
+                        .onErrorResume(Exceptions::isOverflow, error -> {
+                            disconnected.increment();
+                            log.warn("Disconnecting slow SSE subscriber: stream={}, bufferSize={}", stream, bufferSize);
+                            return Mono.empty();
+                        });
+            };
+            if (heartbeat.isZero()) {
+                return bounded;
+            }
+            Sinks.Empty<Void> done = Sinks.empty();
+            Flux<ServerSentEvent<T>> heartbeats = Flux.interval(heartbeat, heartbeat)
+                    .onBackpressureDrop()
+                    .map(tick -> ServerSentEvent.<T>builder().comment("heartbeat").build())
+                    .takeUntilOther(done.asMono());
+            return Flux.merge(1, bounded.doFinally(signal -> done.tryEmitEmpty()), heartbeats);
+        });
+    }
+}
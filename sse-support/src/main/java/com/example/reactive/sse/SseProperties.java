@@ -0,0 +1,20 @@
+package com.example.reactive.sse;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@ConfigurationProperties(prefix = "app.sse")
+@Getter
+@Setter
+public class SseProperties {
+    private int bufferSize = 256;
+    private long heartbeatMs = 15_000L;
+    private OverflowPolicy overflowPolicy = OverflowPolicy.DISCONNECT;
+
+    public enum OverflowPolicy {
+        DROP_OLDEST,
+        CONFLATE_LATEST,
+        DISCONNECT
+    }
+}
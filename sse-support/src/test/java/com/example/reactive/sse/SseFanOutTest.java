@@ -0,0 +1,90 @@
+package com.example.reactive.sse;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.codec.ServerSentEvent;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Sinks;
+import reactor.test.StepVerifier;
+
+class SseFanOutTest {
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    void dropOldestKeepsNewestFramesWithinBuffer() {
+        SseFanOut fanOut = fanOut(SseProperties.OverflowPolicy.DROP_OLDEST, 2, 0);
+
+        Sinks.Many<ServerSentEvent<Integer>> frames = Sinks.many().multicast().directBestEffort();
+
+        StepVerifier.create(fanOut.connect("test", frames.asFlux()), 0)
+                .then(() -> emit(frames, 5))
+                .thenRequest(5)
+                .assertNext(sse -> assertThat(sse.data()).isEqualTo(4))
+                .assertNext(sse -> assertThat(sse.data()).isEqualTo(5))
+                .then(frames::tryEmitComplete)
+                .verifyComplete();
+        assertThat(meterRegistry.get("sse.frames.dropped").counter().count()).isEqualTo(3);
+    }
+
+    @Test
+    void conflateLatestKeepsOnlyLastFrame() {
+        SseFanOut fanOut = fanOut(SseProperties.OverflowPolicy.CONFLATE_LATEST, 2, 0);
+
+        Sinks.Many<ServerSentEvent<Integer>> frames = Sinks.many().multicast().directBestEffort();
+
+        StepVerifier.create(fanOut.connect("test", frames.asFlux()), 0)
+                .then(() -> emit(frames, 5))
+                .thenRequest(5)
+                .assertNext(sse -> assertThat(sse.data()).isEqualTo(5))
+                .then(frames::tryEmitComplete)
+                .verifyComplete();
+        assertThat(meterRegistry.get("sse.frames.dropped").counter().count()).isEqualTo(4);
+    }
+
+    @Test
+    void disconnectClosesOverflowingSubscriber() {
+        SseFanOut fanOut = fanOut(SseProperties.OverflowPolicy.DISCONNECT, 2, 0);
+
+        Sinks.Many<ServerSentEvent<Integer>> frames = Sinks.many().multicast().directBestEffort();
+
+        StepVerifier.create(fanOut.connect("test", frames.asFlux()), 0)
+                .then(() -> emit(frames, 5))
+                .thenRequest(5)
+                .expectNextCount(2)
+                .verifyComplete();
+        assertThat(meterRegistry.get("sse.slow.disconnects").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void sendsHeartbeatsUntilStreamCompletes() {
+        SseFanOut fanOut = fanOut(SseProperties.OverflowPolicy.DISCONNECT, 2, 20);
+
+        StepVerifier.create(fanOut.connect("test", Flux.<ServerSentEvent<Integer>>never()).take(2))
+                .assertNext(sse -> assertThat(sse.comment()).isEqualTo("heartbeat"))
+                .assertNext(sse -> assertThat(sse.comment()).isEqualTo("heartbeat"))
+                .verifyComplete();
+        StepVerifier.create(fanOut.connect("test", Flux.just(ServerSentEvent.builder(1).build())
+                        .delaySubscription(Duration.ofMillis(70))))
+                .thenConsumeWhile(sse -> sse.data() == null)
+                .assertNext(sse -> assertThat(sse.data()).isEqualTo(1))
+                .verifyComplete();
+    }
+
+    private SseFanOut fanOut(SseProperties.OverflowPolicy policy, int bufferSize, long heartbeatMs) {
+        SseProperties properties = new SseProperties();
+        properties.setOverflowPolicy(policy);
+        properties.setBufferSize(bufferSize);
+        properties.setHeartbeatMs(heartbeatMs);
+        return new SseFanOut(properties, meterRegistry);
+    }
+
+    private static void emit(Sinks.Many<ServerSentEvent<Integer>> frames, int count) {
+        for (int i = 1; i <= count; i++) {
+            frames.tryEmitNext(ServerSentEvent.builder(i).build());
+        }
+    }
+}